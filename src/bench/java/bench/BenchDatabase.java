@@ -0,0 +1,65 @@
+package bench;
+
+import util.DatabaseSchema;
+import util.Money;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试数据库
+ * Benchmark Database
+ * 内嵌H2数据库（MySQL兼容模式），建表语句与 CreateDataBase 共用 DatabaseSchema（去掉H2不支持的品牌外键）。
+ */
+final class BenchDatabase {
+    static final String URL_PREFIX = "jdbc:h2:mem:";
+    static final String URL_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    static final String USER = "sa";
+    static final String PASSWORD = "";
+
+    static final String[] BRANDS = {"美团", "饿了么", "怪兽", "街电"};
+    static final long[] PRICES = {150, 250, 200, 100}; // 每小时租金（分）
+
+    private BenchDatabase() {}
+
+    static Connection open(String name) throws SQLException {
+        return DriverManager.getConnection(URL_PREFIX + name + URL_OPTIONS, USER, PASSWORD);
+    }
+
+    static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : DatabaseSchema.tables(false).values()) {
+                statement.execute(ddl);
+            }
+        }
+    }
+
+    static void insertUser(Connection connection, String username, String status, long balance) throws SQLException {
+        String sql = "INSERT INTO User (username, phone, status, password, balance) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            stmt.setString(2, "13800000000");
+            stmt.setString(3, status);
+            stmt.setString(4, "123456");
+            Money.set(stmt, 5, balance);
+            stmt.executeUpdate();
+        }
+    }
+
+    static void insertPowerBanks(Connection connection, int count) throws SQLException {
+        String sql = "INSERT INTO PowerBank (status, battery_level, rental_price_per_hour, brand) VALUES ('Available', ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                int brandIndex = i % BRANDS.length;
+                stmt.setInt(1, 50 + i % 51);
+                Money.set(stmt, 2, PRICES[brandIndex]);
+                stmt.setString(3, BRANDS[brandIndex]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
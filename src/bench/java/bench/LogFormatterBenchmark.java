@@ -0,0 +1,49 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import util.LogFormatter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * 日志格式化吞吐量基准（控制台和文件处理器共用同一个格式化器）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogFormatterBenchmark {
+    private LogFormatter formatter;
+    private LogRecord record;
+
+    @Setup
+    public void setup() {
+        formatter = new LogFormatter();
+        record = new LogRecord(Level.INFO, "开始创建租借订单 - 用户ID: 42, 充电宝ID: 1024, 品牌: 怪兽");
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(record);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatContended() {
+        return formatter.format(record);
+    }
+}
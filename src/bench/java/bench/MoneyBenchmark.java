@@ -0,0 +1,84 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.Transaction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 金额计算基准：原 double 计费路径与 long（分）计费路径对比
+ * 每次调用计算一批归还结算（租金 = 时长 × 单价，应用会员折扣，退押金后得到新余额），
+ * 结果累加返回防止被优化掉。可配合 -prof gc 确认两条路径都不分配对象。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+    private static final int SIZE = 1024;
+    private static final String[] STATUSES = {"Common", "VIP", "SVIP"};
+
+    private final int[] hours = new int[SIZE];
+    private final String[] statuses = new String[SIZE];
+    private final double[] pricesYuan = new double[SIZE];
+    private final double[] balancesYuan = new double[SIZE];
+    private final long[] pricesCents = new long[SIZE];
+    private final long[] balancesCents = new long[SIZE];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            hours[i] = 1 + random.nextInt(48);
+            statuses[i] = STATUSES[random.nextInt(STATUSES.length)];
+            pricesCents[i] = BenchDatabase.PRICES[random.nextInt(BenchDatabase.PRICES.length)];
+            balancesCents[i] = random.nextInt(1_000_000);
+            pricesYuan[i] = pricesCents[i] / 100.0;
+            balancesYuan[i] = balancesCents[i] / 100.0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double doublePath() {
+        double sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            double totalCost = hours[i] * pricesYuan[i];
+            double actualCost = totalCost;
+            if ("SVIP".equals(statuses[i])) {
+                actualCost *= 0.5;
+            } else if ("VIP".equals(statuses[i])) {
+                actualCost *= 0.8;
+            }
+            double deposit = ("VIP".equals(statuses[i]) || "SVIP".equals(statuses[i])) ? 0 : 99.0;
+            sum += balancesYuan[i] + deposit - actualCost;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long centsPath() {
+        long sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            long totalCost = Transaction.calculateRentalCost(hours[i], pricesCents[i]);
+            long actualCost = Transaction.calculateActualCost(totalCost, statuses[i]);
+            long deposit = Transaction.calculateDeposit(statuses[i]);
+            sum += Transaction.calculateReturnBalance(balancesCents[i], deposit, actualCost);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,37 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import util.OrderCodeGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单编号生成基准（归还时每单调用一次）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderCodeBenchmark {
+    @Benchmark
+    public String generateOrderCode() {
+        return OrderCodeGenerator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateOrderCodeContended() {
+        return OrderCodeGenerator.next();
+    }
+}
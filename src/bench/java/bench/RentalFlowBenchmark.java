@@ -0,0 +1,89 @@
+package bench;
+
+import Order.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.DBHelper;
+import util.LogUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 租借/归还流程基准
+ * 在内嵌H2上执行完整的 Order.createRental + Order.returnRental 事务（含连接池和语句缓存）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Ddb.url=" + BenchDatabase.URL_PREFIX + "rental" + BenchDatabase.URL_OPTIONS,
+        "-Ddb.user=" + BenchDatabase.USER,
+        "-Ddb.password=" + BenchDatabase.PASSWORD})
+@State(Scope.Thread)
+public class RentalFlowBenchmark {
+    private static final int POWER_BANKS = 64;
+    private static final String OPEN_ORDER_SQL =
+            "SELECT id FROM `Order` WHERE powerbank_id = ? AND return_time IS NULL";
+
+    private Connection keepAlive; // 保持内存数据库存活
+    private int userId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        // 日志输出会淹没被测流程，基准中只保留警告以上级别（先初始化 LogUtil，避免其覆盖级别）
+        LogUtil.debug("初始化租借流程基准");
+        Logger.getLogger("MobilePowerRental").setLevel(java.util.logging.Level.WARNING);
+
+        keepAlive = BenchDatabase.open("rental");
+        BenchDatabase.createSchema(keepAlive);
+        BenchDatabase.insertUser(keepAlive, "admin", "Admin", 0);
+        BenchDatabase.insertUser(keepAlive, "bench", "Common", 1_000_000_000L);
+        BenchDatabase.insertPowerBanks(keepAlive, POWER_BANKS);
+        try (ResultSet rs = keepAlive.createStatement().executeQuery("SELECT id FROM user WHERE username = 'bench'")) {
+            rs.next();
+            userId = rs.getInt(1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        DBHelper.shutdown();
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public long rentAndReturn() throws SQLException {
+        int powerbankId = next % POWER_BANKS + 1;
+        String brand = BenchDatabase.BRANDS[(powerbankId - 1) % BenchDatabase.BRANDS.length];
+        next++;
+
+        if (!Order.createRental(userId, powerbankId, brand)) {
+            throw new IllegalStateException("租借失败 - 充电宝ID: " + powerbankId);
+        }
+        int orderId;
+        ResultSet rs = DBHelper.executeQuery(OPEN_ORDER_SQL, powerbankId);
+        try {
+            rs.next();
+            orderId = rs.getInt(1);
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        return Order.returnRental(orderId, powerbankId, 1, 150, "BENCH" + next);
+    }
+}
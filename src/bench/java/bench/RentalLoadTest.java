@@ -0,0 +1,346 @@
+package bench;
+
+import Commodity.Commodity;
+import Order.Order;
+import User.PasswordHasher;
+import User.User;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import util.DBHelper;
+import util.LogUtil;
+import util.OrderCodeGenerator;
+import util.Transaction;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 租借负载测试
+ * Rental Load Test
+ * 无界面的负载驱动：load.users 个虚拟用户各占一个线程，循环执行真实的业务方法——
+ * Order.createRental → 持有 → Order.returnRental 的租借周期、User.rechargeBalance 和 User.upgradeMembership。
+ * 品牌按 Zipf 分布选择（load.zipf 越大越集中于热门品牌），热门品牌的库存会被借空并计为缺货。
+ * 默认是闭环模型：每次操作前等待指数分布的思考时间（load.thinkMs）；设置 load.rate（次/秒）后
+ * 每个虚拟用户按 load.users/load.rate 的固定间隔发起操作（持有期间排期顺延），延迟从计划开始时间算起，
+ * 因系统变慢而推迟的等待时间也计入延迟。
+ * 每个操作的延迟记入 HdrHistogram，定期打印区间吞吐量和 p99，结束时打印完整百分位和连接池统计。
+ * 未指定 db.url 时使用内嵌H2并自动建表；指定时对已有数据库施压（需先用 AddTestdata 生成移动电源），
+ * 每个操作结束后立即归还连接，虚拟用户在每次操作时重新争用连接池；并发高于连接池上限时会排队等待连接
+ * （等待计入延迟，超过 db.pool.borrowTimeoutMs 计为异常），可用 db.pool.maxSize 调整。
+ */
+public final class RentalLoadTest {
+    private static final int USERS = Integer.getInteger("load.users", 32);                      // 虚拟用户数
+    private static final int DURATION = Integer.getInteger("load.durationSeconds", 60);         // 测量时长（秒）
+    private static final int WARMUP = Integer.getInteger("load.warmupSeconds", 10);             // 预热时长（秒），不计入结果
+    private static final int REPORT_INTERVAL = Integer.getInteger("load.reportSeconds", 5);     // 区间统计打印间隔（秒）
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "0")); // 总到达率（次/秒），0为闭环
+    private static final long THINK_MS = Long.getLong("load.thinkMs", 200);                     // 平均思考时间（毫秒）
+    private static final long HOLD_MS = Long.getLong("load.holdMs", 1000);                      // 平均持有时间（毫秒）
+    private static final double ZIPF = Double.parseDouble(System.getProperty("load.zipf", "1.0")); // 品牌热度的 Zipf 指数
+    private static final int RENT_WEIGHT = Integer.getInteger("load.rentWeight", 80);           // 各操作的权重
+    private static final int RECHARGE_WEIGHT = Integer.getInteger("load.rechargeWeight", 15);
+    private static final int UPGRADE_WEIGHT = Integer.getInteger("load.upgradeWeight", 5);
+    private static final int POWER_BANKS = Integer.getInteger("load.powerBanks", 256);          // 内嵌库生成的移动电源数
+
+    private static final long INITIAL_BALANCE = 100_000_000L; // 虚拟用户的初始余额（分）
+    private static final long RECHARGE_AMOUNT = 5000;
+    private static final String EMBEDDED_NAME = "load";
+
+    private enum Op {
+        RENT("租借"), RETURN("归还"), RECHARGE("充值"), UPGRADE("升级会员");
+
+        final String label;
+        final Recorder recorder = new Recorder(3);  // 延迟（微秒），多线程写入
+        final Histogram total = new Histogram(3);
+        final LongAdder failures = new LongAdder(); // 业务失败（方法返回 false）
+        final LongAdder errors = new LongAdder();   // 抛出异常
+        Histogram interval;
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        boolean run() throws Exception;
+    }
+
+    private static final LongAdder stockouts = new LongAdder();
+    private static String[] brands;                  // 按库存从多到少排序，排名越前越热门
+    private static double[] brandCdf;
+    private static final Map<String, Queue<Integer>> stock = new LinkedHashMap<>(); // 品牌 -> 可租借的移动电源
+    private static volatile boolean measuring;
+    private static volatile long measureStart;
+
+    private RentalLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Connection keepAlive = null;
+        if (System.getProperty("db.url") == null) {
+            // DBConfig 在首次使用 DBHelper 时读取连接参数，必须在此之前设置
+            System.setProperty("db.url", BenchDatabase.URL_PREFIX + EMBEDDED_NAME + BenchDatabase.URL_OPTIONS);
+            System.setProperty("db.user", BenchDatabase.USER);
+            System.setProperty("db.password", BenchDatabase.PASSWORD);
+            keepAlive = BenchDatabase.open(EMBEDDED_NAME);
+            BenchDatabase.createSchema(keepAlive);
+            BenchDatabase.insertPowerBanks(keepAlive, POWER_BANKS);
+        }
+        // 业务日志会淹没结果，只保留警告以上级别（先初始化 LogUtil，避免其覆盖级别）
+        LogUtil.debug("初始化租借负载测试");
+        Logger.getLogger("MobilePowerRental").setLevel(java.util.logging.Level.WARNING);
+
+        loadStock();
+        User[] users = createUsers();
+        System.out.printf("虚拟用户: %d, 品牌: %s, Zipf: %.2f, %s, 预热 %ds, 测量 %ds%n", USERS, Arrays.toString(brands), ZIPF,
+                RATE > 0 ? String.format("到达率 %.1f 次/秒", RATE) : "闭环, 思考时间 " + THINK_MS + "ms", WARMUP, DURATION);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "load-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(WARMUP + DURATION);
+        reporter.schedule(RentalLoadTest::startMeasuring, WARMUP, TimeUnit.SECONDS);
+        reporter.scheduleAtFixedRate(() -> report(startedAt), REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.SECONDS);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = users[i];
+            Thread thread = new Thread(() -> {
+                try {
+                    runVirtualUser(user, deadline);
+                } finally {
+                    DBHelper.closeConnection();
+                }
+            }, "load-user-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        reporter.shutdownNow();
+        reporter.awaitTermination(5, TimeUnit.SECONDS);
+        long measureEnd = System.nanoTime();
+        for (Op op : Op.values()) {
+            drain(op, measuring);
+        }
+
+        printSummary(measuring ? measureEnd - measureStart : measureEnd - startedAt);
+        System.out.println("连接池: " + DBHelper.getDataSource().getStats());
+        DBHelper.shutdown();
+        if (keepAlive != null) {
+            keepAlive.close();
+        }
+    }
+
+    // 每个虚拟用户的主循环：等待（思考时间或按到达率排期）后按权重选择一个操作
+    private static void runVirtualUser(User user, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intervalNanos = RATE > 0 ? (long) (USERS * 1e9 / RATE) : 0;
+        long next = System.nanoTime() + (intervalNanos > 0 ? random.nextLong(intervalNanos) : 0); // 错开各用户的起点
+        int totalWeight = RENT_WEIGHT + RECHARGE_WEIGHT + UPGRADE_WEIGHT;
+
+        while (System.nanoTime() < deadline) {
+            long intendedStart;
+            if (intervalNanos > 0) {
+                sleepNanos(next - System.nanoTime());
+                intendedStart = next;
+                next += intervalNanos;
+            } else {
+                sleepNanos(TimeUnit.MILLISECONDS.toNanos(exponential(random, THINK_MS)));
+                intendedStart = System.nanoTime();
+            }
+
+            int pick = random.nextInt(totalWeight);
+            if (pick < RENT_WEIGHT) {
+                next += rentCycle(user, intendedStart, random); // 持有期间用户不发起操作，排期顺延
+            } else if (pick < RENT_WEIGHT + RECHARGE_WEIGHT) {
+                timed(Op.RECHARGE, intendedStart, () -> user.rechargeBalance(RECHARGE_AMOUNT));
+            } else {
+                boolean svip = random.nextBoolean();
+                timed(Op.UPGRADE, intendedStart, () -> user.upgradeMembership(svip ? "SVIP" : "VIP", 1, svip ? 3000 : 2500));
+            }
+        }
+    }
+
+    // 租借 → 持有 → 归还，归还与界面一致：先按移动电源查出订单，再按单价计算费用；返回持有时间（纳秒）
+    private static long rentCycle(User user, long intendedStart, ThreadLocalRandom random) {
+        String brand = brands[pickBrand(random)];
+        Queue<Integer> available = stock.get(brand);
+        Integer powerbankId = available.poll();
+        if (powerbankId == null) {
+            stockouts.increment();
+            return 0;
+        }
+        if (!timed(Op.RENT, intendedStart, () -> Order.createRental(user.getId(), powerbankId, brand))) {
+            available.offer(powerbankId);
+            return 0;
+        }
+
+        long holdNanos = TimeUnit.MILLISECONDS.toNanos(exponential(random, HOLD_MS));
+        sleepNanos(holdNanos);
+        boolean returned = timed(Op.RETURN, System.nanoTime(), () -> {
+            Order rental = Order.getRentalByPowerbankId(powerbankId);
+            if (rental == null) {
+                return false;
+            }
+            long hours = 1;
+            long totalCost = Transaction.calculateRentalCost(hours, Commodity.getRentalPricePerHour(powerbankId));
+            return Order.returnRental(rental.getId(), powerbankId, hours, totalCost, OrderCodeGenerator.next()) >= 0;
+        });
+        if (returned) {
+            available.offer(powerbankId); // 归还失败的移动电源仍为使用中，不再放回库存
+        }
+        return holdNanos;
+    }
+
+    private static boolean timed(Op op, long intendedStart, Call call) {
+        try {
+            boolean ok = call.run();
+            if (!ok) {
+                op.failures.increment();
+            }
+            return ok;
+        } catch (Exception e) {
+            op.errors.increment();
+            return false;
+        } finally {
+            op.recorder.recordValue(Math.max(0, (System.nanoTime() - intendedStart) / 1000));
+            // 归还线程绑定的连接，否则超出连接池上限的虚拟用户永远借不到连接
+            DBHelper.closeConnection();
+        }
+    }
+
+    private static void loadStock() throws SQLException {
+        Map<String, Queue<Integer>> byBrand = new LinkedHashMap<>();
+        ResultSet rs = DBHelper.executeQuery("SELECT id, brand FROM PowerBank WHERE status = 'Available'");
+        try {
+            while (rs.next()) {
+                byBrand.computeIfAbsent(rs.getString("brand"), b -> new ConcurrentLinkedQueue<>()).add(rs.getInt("id"));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        if (byBrand.isEmpty()) {
+            throw new IllegalStateException("没有可租借的移动电源，请先生成测试数据");
+        }
+        byBrand.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()))
+                .forEach(e -> stock.put(e.getKey(), e.getValue()));
+        brands = stock.keySet().toArray(new String[0]);
+
+        // 第 k 个品牌的热度与 1/k^s 成正比
+        brandCdf = new double[brands.length];
+        double sum = 0;
+        for (int k = 0; k < brands.length; k++) {
+            sum += 1 / Math.pow(k + 1, ZIPF);
+            brandCdf[k] = sum;
+        }
+        for (int k = 0; k < brands.length; k++) {
+            brandCdf[k] /= sum;
+        }
+    }
+
+    private static int pickBrand(ThreadLocalRandom random) {
+        int index = Arrays.binarySearch(brandCdf, random.nextDouble());
+        return Math.min(brands.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    // 批量创建虚拟用户并充值初始余额
+    private static User[] createUsers() throws SQLException {
+        String passwordHash = PasswordHasher.hash("123456");
+        String prefix = "load_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+        String phone = "13800000000";
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[]{prefix + i, phone, "Common", passwordHash});
+        }
+        long[] ids = DBHelper.executeInsertReturningKeys(
+                "INSERT INTO User (username, phone, status, password) VALUES (?, ?, ?, ?)", rows);
+
+        User[] users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = new User((int) ids[i], prefix + i, phone, "Common", passwordHash, 0, null);
+            users[i].rechargeBalance(INITIAL_BALANCE);
+        }
+        return users;
+    }
+
+    // 预热结束：丢弃预热期间的数据，从此刻开始计入结果
+    private static void startMeasuring() {
+        for (Op op : Op.values()) {
+            drain(op, false);
+            op.failures.reset();
+            op.errors.reset();
+        }
+        stockouts.reset();
+        measureStart = System.nanoTime();
+        measuring = true;
+        System.out.println("预热结束，开始测量");
+    }
+
+    private static void report(long startedAt) {
+        StringBuilder line = new StringBuilder(String.format("%5ds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt)));
+        for (Op op : Op.values()) {
+            Histogram interval = drain(op, measuring);
+            line.append(String.format("  %s %.1f/s p99 %.2fms", op.label,
+                    interval.getTotalCount() / (double) REPORT_INTERVAL, interval.getValueAtPercentile(99) / 1000.0));
+        }
+        line.append("  缺货 ").append(stockouts.sum());
+        System.out.println(line);
+    }
+
+    private static Histogram drain(Op op, boolean keep) {
+        op.interval = op.recorder.getIntervalHistogram(op.interval);
+        if (keep) {
+            op.total.add(op.interval);
+        }
+        return op.interval;
+    }
+
+    private static void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n测量时长 %.1fs, 缺货 %d 次%n", seconds, stockouts.sum());
+        System.out.printf("%-8s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "操作", "次数", "失败", "异常", "吞吐(次/秒)", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "最大(ms)");
+        for (Op op : Op.values()) {
+            Histogram h = op.total;
+            System.out.printf("%-8s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    op.label, h.getTotalCount(), op.failures.sum(), op.errors.sum(), h.getTotalCount() / seconds,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0);
+        }
+    }
+
+    private static long exponential(ThreadLocalRandom random, long mean) {
+        return mean <= 0 ? 0 : (long) (-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import Commodity.Commodity;
+import User.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果集映射基准：Commodity.fromResultSet / User.fromResultSet
+ * 查询结果预先缓存在 CachedRowSet 中，只测量按列名取值和对象构造的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetMappingBenchmark {
+    @Param({"100", "1000"})
+    private int rows;
+
+    private CachedRowSet commodityRows;
+    private CachedRowSet userRows;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        try (Connection connection = BenchDatabase.open("mapping" + rows)) {
+            BenchDatabase.createSchema(connection);
+            BenchDatabase.insertPowerBanks(connection, rows);
+            for (int i = 0; i < rows; i++) {
+                BenchDatabase.insertUser(connection, "user" + i, i % 3 == 0 ? "VIP" : "Common", 10_000);
+            }
+            commodityRows = cache(connection, "SELECT * FROM powerbank");
+            userRows = cache(connection, "SELECT * FROM user");
+        }
+    }
+
+    private static CachedRowSet cache(Connection connection, String sql) throws SQLException {
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rowSet.populate(rs);
+        }
+        return rowSet;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        commodityRows.close();
+        userRows.close();
+    }
+
+    @Benchmark
+    public List<Commodity> mapCommodities() throws SQLException {
+        commodityRows.beforeFirst();
+        List<Commodity> result = new ArrayList<>(rows);
+        while (commodityRows.next()) {
+            result.add(Commodity.fromResultSet(commodityRows));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<User> mapUsers() throws SQLException {
+        userRows.beforeFirst();
+        List<User> result = new ArrayList<>(rows);
+        while (userRows.next()) {
+            result.add(User.fromResultSet(userRows));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.Transaction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 费用计算基准：会员折扣、完整规则报价与押金计算
+ * 未连接数据库时 PricingEngine 使用默认规则。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionBenchmark {
+    @Param({"Common", "VIP", "SVIP"})
+    private String userStatus;
+
+    private long totalCost = 3750; // 37.50 元
+
+    @Benchmark
+    public long calculateActualCost() {
+        return Transaction.calculateActualCost(totalCost, userStatus);
+    }
+
+    @Benchmark
+    public long calculateQuote() {
+        return Transaction.calculateActualCost(totalCost, userStatus, "小米", 20, 3);
+    }
+
+    @Benchmark
+    public long calculateDeposit() {
+        return Transaction.calculateDeposit(userStatus);
+    }
+}
@@ -2,16 +2,18 @@ package Commodity;
 
 import util.DBHelper;
 import util.LogUtil;
+import util.Money;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class Commodity {
     private int id;                         // 移动电源ID
     private Status status;                  // 当前状态
     private int batteryLevel;              // 电池电量
-    private double rentalPricePerHour;     // 每小时租金
+    private long rentalPricePerHour;       // 每小时租金（分）
     private String brand;                   // 品牌
 
     /**
@@ -26,7 +28,7 @@ public class Commodity {
 
     public Commodity() {}
 
-    public Commodity(Status status, int batteryLevel, double rentalPricePerHour, String brand) {
+    public Commodity(Status status, int batteryLevel, long rentalPricePerHour, String brand) {
         this.status = status;
         this.batteryLevel = batteryLevel;
         this.rentalPricePerHour = rentalPricePerHour;
@@ -40,8 +42,8 @@ public class Commodity {
     public void setStatus(Status status) { this.status = status; }
     public int getBatteryLevel() { return batteryLevel; }
     public void setBatteryLevel(int batteryLevel) { this.batteryLevel = batteryLevel; }
-    public double getRentalPricePerHour() { return rentalPricePerHour; }
-    public void setRentalPricePerHour(double rentalPricePerHour) { this.rentalPricePerHour = rentalPricePerHour; }
+    public long getRentalPricePerHour() { return rentalPricePerHour; }
+    public void setRentalPricePerHour(long rentalPricePerHour) { this.rentalPricePerHour = rentalPricePerHour; }
     public String getBrand() { return brand; }
     public void setBrand(String brand) { this.brand = brand; }
 
@@ -51,21 +53,11 @@ public class Commodity {
      * @throws SQLException 数据库操作异常
      */
     public static List<Commodity> getAvailablePowerBanks() throws SQLException {
-        List<Commodity> powerBanks = new ArrayList<>();
-        String sql = "SELECT * FROM powerbank WHERE status = 'Available'";
         LogUtil.info("查询所有可用的电源");
-        var rs = DBHelper.executeQuery(sql);
-        while (rs.next()) {
-            Commodity powerBank = new Commodity();
-            powerBank.setId(rs.getInt("id"));
-            powerBank.setBrand(rs.getString("brand"));
-            powerBank.setBatteryLevel(rs.getInt("battery_level"));
-            powerBank.setStatus(Status.valueOf(rs.getString("status")));
-            powerBank.setRentalPricePerHour(rs.getDouble("rental_price_per_hour"));
-            powerBanks.add(powerBank);
-            LogUtil.debug("找到可用电源 - ID: " + powerBank.getId() + ", 品牌: " + powerBank.getBrand());
+        List<Commodity> powerBanks = PowerBankInventory.getInstance().findByStatus(Status.Available);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("找到可用电源 - 数量: {}", powerBanks.size());
         }
-        DBHelper.closeResources(rs, null);
         return powerBanks;
     }
 
@@ -79,6 +71,9 @@ public class Commodity {
     public static boolean updateStatus(int id, Status status) throws SQLException {
         String sql = "UPDATE powerbank SET status = ? WHERE id = ?";
         boolean updated = DBHelper.executeUpdate(sql, status.toString(), id) > 0;
+        if (updated) {
+            PowerBankInventory.getInstance().refresh(id);
+        }
         LogUtil.info("更新电源状态 - ID: " + id + ", 新状态: " + status);
         return updated;
     }
@@ -86,15 +81,15 @@ public class Commodity {
     /**
      * 获取移动电源的小时租金
      * @param id 移动电源ID
-     * @return 移动电源的小时租金
+     * @return 移动电源的小时租金（分）
      * @throws SQLException 数据库操作异常
      */
-    public static double getRentalPricePerHour(int id) throws SQLException {
+    public static long getRentalPricePerHour(int id) throws SQLException {
         String sql = "SELECT rental_price_per_hour FROM powerbank WHERE id = ?";
         var rs = DBHelper.executeQuery(sql, id);
         if (rs.next()) {
-            double price = rs.getDouble("rental_price_per_hour");
-            LogUtil.info("获取电源小时租金 - ID: " + id + ", 租金: " + price);
+            long price = Money.get(rs, "rental_price_per_hour");
+            LogUtil.info("获取电源小时租金 - ID: " + id + ", 租金: " + Money.format(price));
             DBHelper.closeResources(rs, null);
             return price;
         }
@@ -112,36 +107,39 @@ public class Commodity {
         if (this.id == 0) {
             // 新增
             String sql = "INSERT INTO powerbank (status, battery_level, rental_price_per_hour, brand) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setString(1, status.toString());
-                stmt.setInt(2, batteryLevel);
-                stmt.setDouble(3, rentalPricePerHour);
-                stmt.setString(4, brand);
-                
-                int result = stmt.executeUpdate();
-                if (result > 0) {
-                    ResultSet generatedKeys = stmt.getGeneratedKeys();
+            PreparedStatement stmt = DBHelper.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            stmt.setString(1, status.toString());
+            stmt.setInt(2, batteryLevel);
+            Money.set(stmt, 3, rentalPricePerHour);
+            stmt.setString(4, brand);
+
+            int result = stmt.executeUpdate();
+            if (result > 0) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         this.id = generatedKeys.getInt(1);
                     }
-                    LogUtil.info("新增商品成功 - ID: " + this.id + ", 品牌: " + this.brand);
-                    return true;
                 }
-                LogUtil.warning("新增商品失败 - 品牌: " + this.brand);
-                return false;
+                PowerBankInventory.getInstance().refresh(this.id);
+                LogUtil.info("新增商品成功 - ID: " + this.id + ", 品牌: " + this.brand);
+                return true;
             }
+            LogUtil.warning("新增商品失败 - 品牌: " + this.brand);
+            return false;
         } else {
             // 更新（不修改品牌）
             String sql = "UPDATE powerbank SET status = ?, battery_level = ?, rental_price_per_hour = ? WHERE id = ?";
-            try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-                stmt.setString(1, status.toString());
-                stmt.setInt(2, batteryLevel);
-                stmt.setDouble(3, rentalPricePerHour);
-                stmt.setInt(4, id);
-                boolean updated = stmt.executeUpdate() > 0;
-                LogUtil.info("更新商品信息 - ID: " + this.id + ", 状态: " + this.status);
-                return updated;
+            PreparedStatement stmt = DBHelper.prepareStatement(sql);
+            stmt.setString(1, status.toString());
+            stmt.setInt(2, batteryLevel);
+            Money.set(stmt, 3, rentalPricePerHour);
+            stmt.setInt(4, id);
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                PowerBankInventory.getInstance().refresh(this.id);
             }
+            LogUtil.info("更新商品信息 - ID: " + this.id + ", 状态: " + this.status);
+            return updated;
         }
     }
 
@@ -156,12 +154,14 @@ public class Commodity {
             return false;
         }
         String sql = "DELETE FROM powerbank WHERE id = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setInt(1, this.id);
-            boolean deleted = stmt.executeUpdate() > 0;
-            LogUtil.info("删除商品成功 - ID: " + this.id);
-            return deleted;
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setInt(1, this.id);
+        boolean deleted = stmt.executeUpdate() > 0;
+        if (deleted) {
+            PowerBankInventory.getInstance().remove(this.id);
         }
+        LogUtil.info("删除商品成功 - ID: " + this.id);
+        return deleted;
     }
 
     /**
@@ -171,77 +171,85 @@ public class Commodity {
      */
     public static List<Commodity> getAllCommodities() throws SQLException {
         List<Commodity> commodities = new ArrayList<>();
-        String sql = "SELECT * FROM powerbank";
-        var rs = DBHelper.executeQuery(sql);
-        while (rs.next()) {
-            Commodity commodity = new Commodity();
-            commodity.setId(rs.getInt("id"));
-            commodity.setBrand(rs.getString("brand"));
-            commodity.setBatteryLevel(rs.getInt("battery_level"));
-            commodity.setStatus(Status.valueOf(rs.getString("status")));
-            commodity.setRentalPricePerHour(rs.getDouble("rental_price_per_hour"));
-            commodities.add(commodity);
+        forEachCommodity(commodities::add);
+        return commodities;
+    }
+
+    /**
+     * 逐个读取所有移动电源（流式读取，内存占用与表大小无关）
+     * @param consumer 每个移动电源的处理逻辑
+     * @return 读取的数量
+     * @throws SQLException 数据库操作异常
+     */
+    public static long forEachCommodity(Consumer<? super Commodity> consumer) throws SQLException {
+        return DBHelper.stream("SELECT * FROM powerbank", Commodity::fromResultSet, consumer);
+    }
+
+    /**
+     * 统计移动电源数量
+     * @return 移动电源数量
+     * @throws SQLException 数据库操作异常
+     */
+    public static int countCommodities() throws SQLException {
+        ResultSet rs = DBHelper.executeQuery("SELECT COUNT(*) FROM powerbank");
+        try {
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+    }
+
+    /**
+     * 按ID顺序分页读取移动电源
+     * 已知上一页最后的ID时按主键续读（不随页数变慢），否则按偏移量定位
+     * @param afterId 上一页最后一个移动电源的ID，未知时为 null
+     * @param offset 起始位置（afterId 为 null 时使用）
+     * @param limit 读取数量
+     * @return 移动电源列表
+     * @throws SQLException 数据库操作异常
+     */
+    public static List<Commodity> getCommodityPage(Integer afterId, int offset, int limit) throws SQLException {
+        ResultSet rs = afterId != null
+                ? DBHelper.executeQuery("SELECT * FROM powerbank WHERE id > ? ORDER BY id LIMIT ?", afterId, limit)
+                : DBHelper.executeQuery("SELECT * FROM powerbank ORDER BY id LIMIT ? OFFSET ?", limit, offset);
+        List<Commodity> commodities = new ArrayList<>(limit);
+        try {
+            while (rs.next()) {
+                commodities.add(fromResultSet(rs));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
         }
-        DBHelper.closeResources(rs, null);
         return commodities;
     }
 
     /**
      * 根据条件筛选移动电源信息
      * @param status 状态
-     * @param minPrice 最低租金
-     * @param maxPrice 最高租金
+     * @param minPrice 最低租金（分）
+     * @param maxPrice 最高租金（分）
      * @param minBattery 最低电量
      * @param maxBattery 最高电量
      * @return 筛选后的移动电源信息列表
      * @throws SQLException 数据库操作异常
      */
-    public static List<Commodity> filterCommodities(Status status, Double minPrice, Double maxPrice, Integer minBattery, Integer maxBattery) throws SQLException {
-        StringBuilder sql = new StringBuilder("SELECT * FROM powerbank WHERE 1=1");
-        List<Object> params = new ArrayList<>();
-
-        if (status != null) {
-            sql.append(" AND status = ?");
-            params.add(status.toString());
-        }
-
-        if (minPrice != null) {
-            sql.append(" AND rental_price_per_hour >= ?");
-            params.add(minPrice);
-        }
-
-        if (maxPrice != null) {
-            sql.append(" AND rental_price_per_hour <= ?");
-            params.add(maxPrice);
-        }
-
-        if (minBattery != null) {
-            sql.append(" AND battery_level >= ?");
-            params.add(minBattery);
-        }
-
-        if (maxBattery != null) {
-            sql.append(" AND battery_level <= ?");
-            params.add(maxBattery);
-        }
+    public static List<Commodity> filterCommodities(Status status, Long minPrice, Long maxPrice, Integer minBattery, Integer maxBattery) throws SQLException {
+        return filterCommodities(status, null, minPrice, maxPrice, minBattery, maxBattery);
+    }
 
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
-            }
-            ResultSet rs = stmt.executeQuery();
-            List<Commodity> commodities = new ArrayList<>();
-            while (rs.next()) {
-                Commodity commodity = new Commodity();
-                commodity.setId(rs.getInt("id"));
-                commodity.setBrand(rs.getString("brand"));
-                commodity.setBatteryLevel(rs.getInt("battery_level"));
-                commodity.setStatus(Status.valueOf(rs.getString("status")));
-                commodity.setRentalPricePerHour(rs.getDouble("rental_price_per_hour"));
-                commodities.add(commodity);
-            }
-            return commodities;
-        }
+    /**
+     * 根据条件筛选移动电源信息（含品牌），参数为null表示不限
+     * @param status 状态
+     * @param brand 品牌
+     * @param minPrice 最低租金（分）
+     * @param maxPrice 最高租金（分）
+     * @param minBattery 最低电量
+     * @param maxBattery 最高电量
+     * @return 筛选后的移动电源信息列表
+     * @throws SQLException 数据库操作异常
+     */
+    public static List<Commodity> filterCommodities(Status status, String brand, Long minPrice, Long maxPrice, Integer minBattery, Integer maxBattery) throws SQLException {
+        return PowerBankInventory.getInstance().filter(status, brand, minPrice, maxPrice, minBattery, maxBattery);
     }
 
     /**
@@ -252,22 +260,7 @@ public class Commodity {
      * @throws SQLException 数据库操作异常
      */
     public static Commodity findByBrandAndStatus(String brand, Status status) throws SQLException {
-        String sql = "SELECT * FROM powerbank WHERE brand = ? AND status = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setString(1, brand);
-            stmt.setString(2, status.toString());
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                Commodity commodity = new Commodity();
-                commodity.setId(rs.getInt("id"));
-                commodity.setBrand(rs.getString("brand"));
-                commodity.setBatteryLevel(rs.getInt("battery_level"));
-                commodity.setStatus(Status.valueOf(rs.getString("status")));
-                commodity.setRentalPricePerHour(rs.getDouble("rental_price_per_hour"));
-                return commodity;
-            }
-            return null;
-        }
+        return PowerBankInventory.getInstance().findFirst(brand, status);
     }
 
     /**
@@ -289,12 +282,7 @@ public class Commodity {
         String sql = "SELECT * FROM powerbank WHERE id = ?";
         var rs = DBHelper.executeQuery(sql, id);
         if (rs.next()) {
-            Commodity powerBank = new Commodity();
-            powerBank.setId(rs.getInt("id"));
-            powerBank.setBrand(rs.getString("brand"));
-            powerBank.setBatteryLevel(rs.getInt("battery_level"));
-            powerBank.setStatus(Status.valueOf(rs.getString("status")));
-            powerBank.setRentalPricePerHour(rs.getDouble("rental_price_per_hour"));
+            Commodity powerBank = fromResultSet(rs);
             DBHelper.closeResources(rs, null);
             return powerBank;
         }
@@ -310,6 +298,26 @@ public class Commodity {
      */
     public boolean updateStatus(Status newStatus) throws SQLException {
         String sql = "UPDATE powerbank SET status = ? WHERE id = ?";
-        return DBHelper.executeUpdate(sql, newStatus.toString(), this.id) > 0;
+        boolean updated = DBHelper.executeUpdate(sql, newStatus.toString(), this.id) > 0;
+        if (updated) {
+            PowerBankInventory.getInstance().refresh(this.id);
+        }
+        return updated;
+    }
+
+    /**
+     * 将结果集当前行映射为移动电源对象
+     * @param rs 结果集（已定位到当前行）
+     * @return 移动电源对象
+     * @throws SQLException 数据库操作异常
+     */
+    public static Commodity fromResultSet(ResultSet rs) throws SQLException {
+        Commodity commodity = new Commodity();
+        commodity.setId(rs.getInt("id"));
+        commodity.setBrand(rs.getString("brand"));
+        commodity.setBatteryLevel(rs.getInt("battery_level"));
+        commodity.setStatus(Status.valueOf(rs.getString("status")));
+        commodity.setRentalPricePerHour(Money.get(rs, "rental_price_per_hour"));
+        return commodity;
     }
 }
@@ -0,0 +1,354 @@
+package Commodity;
+
+import Commodity.Commodity.Status;
+import util.DBHelper;
+import util.LogUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 移动电源库存索引
+ * PowerBank Inventory Index
+ * 常驻内存的移动电源索引：按ID保存快照，并按状态、品牌和电量区间建立位图索引，
+ * 可用性查询和筛选查询直接在内存中完成。索引由各写路径（新增、修改、删除、租借、归还、电池巡检）维护，
+ * 写路径提交后按ID从数据库读回该行，不在内存中推算新状态。
+ */
+public class PowerBankInventory {
+    private static final int BATTERY_BUCKET_WIDTH = 10;                          // 电量分桶宽度
+    private static final int BATTERY_BUCKETS = 100 / BATTERY_BUCKET_WIDTH + 1;   // 0-9, 10-19, ..., 90-99, 100
+    private static final PowerBankInventory INSTANCE = new PowerBankInventory();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private final EnumMap<Status, BitSet> byStatus = new EnumMap<>(Status.class);
+    private final Map<String, BitSet> byBrand = new HashMap<>();
+    private final BitSet[] byBattery = new BitSet[BATTERY_BUCKETS];
+    private volatile boolean loaded = false;
+    private volatile long version = 0;  // 每次从数据库加载后递增
+
+    private PowerBankInventory() {
+        for (Status status : Status.values()) {
+            byStatus.put(status, new BitSet());
+        }
+        for (int i = 0; i < BATTERY_BUCKETS; i++) {
+            byBattery[i] = new BitSet();
+        }
+    }
+
+    public static PowerBankInventory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 按状态查询移动电源
+     * @param status 状态
+     * @return 移动电源列表（按ID升序）
+     * @throws SQLException 首次加载索引失败
+     */
+    public List<Commodity> findByStatus(Status status) throws SQLException {
+        return filter(status, null, null, null, null, null);
+    }
+
+    /**
+     * 按条件筛选移动电源，参数为null表示不限
+     * @param status 状态
+     * @param brand 品牌
+     * @param minPrice 最低租金（分）
+     * @param maxPrice 最高租金（分）
+     * @param minBattery 最低电量
+     * @param maxBattery 最高电量
+     * @return 移动电源列表（按ID升序）
+     * @throws SQLException 首次加载索引失败
+     */
+    public List<Commodity> filter(Status status, String brand, Long minPrice, Long maxPrice,
+                                  Integer minBattery, Integer maxBattery) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(status, brand, minBattery, maxBattery);
+            List<Commodity> result = new ArrayList<>(candidates.cardinality());
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                Entry entry = byId.get(id);
+                if (entry.matches(minPrice, maxPrice, minBattery, maxBattery)) {
+                    result.add(entry.toCommodity());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找指定品牌和状态的第一个移动电源
+     * @param brand 品牌
+     * @param status 状态
+     * @return 移动电源，未找到返回null
+     * @throws SQLException 首次加载索引失败
+     */
+    public Commodity findFirst(String brand, Status status) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(status, brand, null, null);
+            int id = candidates.nextSetBit(0);
+            return id >= 0 ? byId.get(id).toCommodity() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计指定状态的移动电源数量
+     * @param status 状态
+     * @return 数量
+     * @throws SQLException 首次加载索引失败
+     */
+    public int count(Status status) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return byStatus.get(status).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 根据状态、品牌、电量区间求候选ID集合（调用方持有读锁）
+    private BitSet candidates(Status status, String brand, Integer minBattery, Integer maxBattery) {
+        BitSet result;
+        if (status != null) {
+            result = (BitSet) byStatus.get(status).clone();
+        } else {
+            result = new BitSet();
+            for (BitSet ids : byStatus.values()) {
+                result.or(ids);
+            }
+        }
+        if (brand != null) {
+            BitSet brandIds = byBrand.get(brand);
+            if (brandIds == null) {
+                return new BitSet();
+            }
+            result.and(brandIds);
+        }
+        if (minBattery != null || maxBattery != null) {
+            int from = bucketOf(minBattery == null ? 0 : minBattery);
+            int to = bucketOf(maxBattery == null ? 100 : maxBattery);
+            BitSet batteryIds = new BitSet();
+            for (int bucket = from; bucket <= to; bucket++) {
+                batteryIds.or(byBattery[bucket]);
+            }
+            result.and(batteryIds);
+        }
+        return result;
+    }
+
+    /**
+     * 按数据库中已提交的数据刷新一个移动电源（新增、修改、租借、归还等写事务提交后调用）
+     * 在写锁内读取数据库：两个写路径提交后的刷新即使执行顺序与提交顺序相反，后执行的一次读到的也是最新数据，
+     * 索引不会停留在较早的状态
+     * @param id 移动电源ID
+     */
+    public void refresh(int id) {
+        if (!loaded || id <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ResultSet rs = DBHelper.executeQuery("SELECT * FROM powerbank WHERE id = ?", id);
+            try {
+                if (rs.next()) {
+                    Commodity commodity = Commodity.fromResultSet(rs);
+                    index(new Entry(commodity.getId(), commodity.getStatus(), commodity.getBatteryLevel(),
+                            commodity.getRentalPricePerHour(), commodity.getBrand()));
+                } else {
+                    unindex(byId.remove(id));
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+        } catch (SQLException e) {
+            // 无法确定该行的状态，下次查询时重新加载
+            loaded = false;
+            LogUtil.error("刷新移动电源索引失败 - ID: " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除移动电源
+     * @param id 移动电源ID
+     */
+    public void remove(int id) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(byId.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 更新移动电源状态和电量（值须读自数据库，电池巡检在每批提交前调用，此时这些行仍由巡检事务锁定）
+     * @param id 移动电源ID
+     * @param status 新状态
+     * @param battery 新电量
+     */
+    public void updateState(int id, Status status, int battery) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.get(id);
+            if (old != null) {
+                index(old.withState(status, battery));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取当前索引的加载版本（每次从数据库加载后递增）
+     * 调用方可在写事务前后比较，判断期间是否发生了加载：加载读到的可能是未提交前的数据
+     * @return 加载版本，索引未加载时返回-1
+     */
+    public long loadedVersion() {
+        return loaded ? version : -1;
+    }
+
+    /**
+     * 从数据库重新加载全部索引
+     * @throws SQLException 数据库操作异常
+     */
+    public void reload() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 使索引失效，下次查询时重新加载
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 调用方持有写锁
+    private void load() throws SQLException {
+        long start = System.currentTimeMillis();
+        byId.clear();
+        byBrand.clear();
+        for (BitSet ids : byStatus.values()) {
+            ids.clear();
+        }
+        for (BitSet ids : byBattery) {
+            ids.clear();
+        }
+        ResultSet rs = DBHelper.executeQuery("SELECT * FROM powerbank");
+        try {
+            while (rs.next()) {
+                Commodity commodity = Commodity.fromResultSet(rs);
+                index(new Entry(commodity.getId(), commodity.getStatus(), commodity.getBatteryLevel(),
+                        commodity.getRentalPricePerHour(), commodity.getBrand()));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        version++;
+        loaded = true;
+        LogUtil.info("移动电源库存索引已加载 - 数量: " + byId.size() + ", 耗时: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    // 写入索引（调用方持有写锁）
+    private void index(Entry entry) {
+        unindex(byId.put(entry.id, entry));
+        byStatus.get(entry.status).set(entry.id);
+        byBrand.computeIfAbsent(entry.brand, b -> new BitSet()).set(entry.id);
+        byBattery[bucketOf(entry.battery)].set(entry.id);
+    }
+
+    // 从二级索引中移除（调用方持有写锁）
+    private void unindex(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        byStatus.get(entry.status).clear(entry.id);
+        BitSet brandIds = byBrand.get(entry.brand);
+        if (brandIds != null) {
+            brandIds.clear(entry.id);
+        }
+        byBattery[bucketOf(entry.battery)].clear(entry.id);
+    }
+
+    private static int bucketOf(int battery) {
+        return Math.max(0, Math.min(battery, 100)) / BATTERY_BUCKET_WIDTH;
+    }
+
+    /**
+     * 索引中的移动电源快照（不可变）
+     */
+    private static final class Entry {
+        final int id;
+        final Status status;
+        final int battery;
+        final long price;     // 每小时租金（分）
+        final String brand;
+
+        Entry(int id, Status status, int battery, long price, String brand) {
+            this.id = id;
+            this.status = status;
+            this.battery = battery;
+            this.price = price;
+            this.brand = brand;
+        }
+
+        Entry withState(Status status, int battery) {
+            return new Entry(id, status, battery, price, brand);
+        }
+
+        boolean matches(Long minPrice, Long maxPrice, Integer minBattery, Integer maxBattery) {
+            return (minPrice == null || price >= minPrice)
+                    && (maxPrice == null || price <= maxPrice)
+                    && (minBattery == null || battery >= minBattery)
+                    && (maxBattery == null || battery <= maxBattery);
+        }
+
+        Commodity toCommodity() {
+            Commodity commodity = new Commodity(status, battery, price, brand);
+            commodity.setId(id);
+            return commodity;
+        }
+    }
+}
@@ -1,70 +1,121 @@
 import util.DBConfig;
+import util.DatabaseSchema;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 
 public class CreateDataBase implements DBConfig {
 
     public static void main(String[] args) {
-        // 用户表SQL：存储用户信息，包括基本信息、会员状态和余额
-        String createUserTable = "CREATE TABLE IF NOT EXISTS User (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY, " +           // 用户唯一标识
-                "username VARCHAR(50) NOT NULL UNIQUE, " +        // 用户名，不可重复
-                "phone VARCHAR(50) NOT NULL, " +                  // 手机号
-                "status ENUM('Common', 'VIP', 'Admin', 'SVIP') NOT NULL DEFAULT 'Common', " +  // 用户身份状态
-                "password VARCHAR(50) NOT NULL, " +               // 密码
-                "balance DECIMAL(10, 2) DEFAULT 0.00, " +        // 账户余额
-                "is_vip BOOLEAN DEFAULT FALSE, " +               // VIP标志
-                "is_svip BOOLEAN DEFAULT FALSE, " +              // SVIP标志
-                "expiresTime DATETIME DEFAULT NULL, " +          // 会员过期时间
-                "avatar VARCHAR(255) DEFAULT NULL" +             // 用户头像路径
-                ");";
-
-        // 移动电源表SQL：管理所有移动电源设备的状态和信息
-        String createPowerBankTable = "CREATE TABLE IF NOT EXISTS PowerBank (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 设备唯一标识
-                "status ENUM('Available', 'InUse', 'Unavailable') NOT NULL DEFAULT 'Available', " +  // 设备当前状态
-                "battery_level INT NOT NULL, " +                 // 电池电量
-                "rental_price_per_hour DECIMAL(5, 2) NOT NULL DEFAULT 1.50, " +  // 每小时租金
-                "brand VARCHAR(500) NOT NULL, " +                // 设备品牌
-                "INDEX idx_brand (brand)" +                      // 品牌索引，提高查询效率
-                ");";
-
-        // 订单表SQL：记录租赁交易信息
-        String createOrderTable = "CREATE TABLE IF NOT EXISTS `Order` (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 订单唯一标识
-                "user_id INT NOT NULL, " +                       // 关联用户ID
-                "powerbank_id INT NOT NULL, " +                  // 关联移动电源ID
-                "brand VARCHAR(500) NOT NULL, " +                // 移动电源品牌
-                "rental_duration_hours INT DEFAULT 0, " +        // 租赁时长（小时）
-                "total_cost DECIMAL(10, 2) DEFAULT 0.00, " +     // 总费用
-                "order_code VARCHAR(50) DEFAULT NULL, " +        // 订单编号
-                "rental_start_time DATETIME NOT NULL, " +        // 租赁开始时间
-                "return_time DATETIME DEFAULT NULL, " +          // 归还时间
-                "deposit DECIMAL(10, 2) DEFAULT 0.00, " +        // 押金金额
-                "FOREIGN KEY (user_id) REFERENCES User(id) ON DELETE CASCADE, " +           // 用户外键关联
-                "FOREIGN KEY (powerbank_id) REFERENCES PowerBank(id) ON DELETE CASCADE, " + // 设备外键关联
-                "FOREIGN KEY (brand) REFERENCES PowerBank(brand) ON DELETE CASCADE" +       // 品牌外键关联
-                ");";
+        // 默认计费规则：SVIP 5折、VIP 8折免押金，普通用户押金99元
+        String insertDefaultPricingRules = "INSERT INTO pricing_rule (rule_type, rule_key, percent, deposit) VALUES " +
+                "('Membership', 'Common', 100, 99.00), " +
+                "('Membership', 'VIP', 80, 0.00), " +
+                "('Membership', 'SVIP', 50, 0.00), " +
+                "('Membership', 'Admin', 100, 99.00)";
 
         // 尝试创建数据表
         try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
              Statement statement = connection.createStatement()) {
 
-            // 依次执行建表SQL语句
-            statement.execute(createUserTable);
-            System.out.println("User 表创建成功或已存在。");
+            // 依次执行建表SQL语句（建表语句见 DatabaseSchema）
+            for (Map.Entry<String, String> table : DatabaseSchema.tables(true).entrySet()) {
+                statement.execute(table.getValue());
+                System.out.println(table.getKey() + " 表创建成功或已存在。");
+            }
+
+            // 旧版本的密码列只能容纳明文密码，扩宽以保存哈希
+            statement.execute("ALTER TABLE User MODIFY password VARCHAR(255) NOT NULL");
 
-            statement.execute(createPowerBankTable);
-            System.out.println("PowerBank 表创建成功或已存在。");
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM pricing_rule")) {
+                rs.next();
+                if (rs.getInt(1) == 0) {
+                    statement.execute(insertDefaultPricingRules);
+                    System.out.println("已写入默认计费规则。");
+                }
+            }
 
-            statement.execute(createOrderTable);
-            System.out.println("Order 表创建成功或已存在。");
+            // 为旧版本创建的表补建索引（每个索引单独处理，一个失败不影响其他索引）
+            ensureIndex(connection, "PowerBank", "idx_status", "CREATE INDEX idx_status ON PowerBank (status)");
+            ensureIndex(connection, "Order", "idx_user_start",
+                    "CREATE INDEX idx_user_start ON `Order` (user_id, rental_start_time, id)");
+            if (!hasIndex(connection, "Order", "uk_order_code")) {
+                resolveDuplicateOrderCodes(connection);
+            }
+            ensureIndex(connection, "Order", "uk_order_code",
+                    "CREATE UNIQUE INDEX uk_order_code ON `Order` (order_code)");
+            ensureIndex(connection, "User", "idx_expires", "CREATE INDEX idx_expires ON User (expiresTime)");
 
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("创建表时出现错误！");
         }
     }
+
+    /**
+     * 旧版本的订单编号只精确到毫秒，同一毫秒内归还的订单可能重复，建唯一索引前先处理：
+     * 每组重复编号保留ID最小的订单，其余订单的编号追加 "-订单ID"
+     * @param connection 数据库连接
+     */
+    private static void resolveDuplicateOrderCodes(Connection connection) {
+        String rename = "UPDATE `Order` o JOIN (" +
+                "SELECT order_code, MIN(id) AS keep_id FROM `Order` WHERE order_code IS NOT NULL " +
+                "GROUP BY order_code HAVING COUNT(*) > 1) d ON o.order_code = d.order_code AND o.id <> d.keep_id " +
+                "SET o.order_code = CONCAT(o.order_code, '-', o.id)";
+        try (Statement statement = connection.createStatement()) {
+            int renamed = statement.executeUpdate(rename);
+            if (renamed > 0) {
+                System.out.println("Order 表有 " + renamed + " 个订单的编号重复，已在编号后追加订单ID。");
+            }
+        } catch (SQLException e) {
+            System.err.println("处理重复的订单编号失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 索引不存在时创建索引（CREATE TABLE IF NOT EXISTS 不会修改已存在的表）
+     * 失败时只打印错误，不中断后续的建表和建索引
+     * @param connection 数据库连接
+     * @param table 表名
+     * @param indexName 索引名
+     * @param ddl 建索引语句
+     */
+    private static void ensureIndex(Connection connection, String table, String indexName, String ddl) {
+        try {
+            if (hasIndex(connection, table, indexName)) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(ddl);
+            }
+            System.out.println(table + " 表已补建索引 " + indexName + "。");
+        } catch (SQLException e) {
+            System.err.println(table + " 表补建索引 " + indexName + " 失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 检查索引是否存在
+     * @param connection 数据库连接
+     * @param table 表名
+     * @param indexName 索引名
+     * @return 是否存在
+     * @throws SQLException SQL异常
+     */
+    private static boolean hasIndex(Connection connection, String table, String indexName) throws SQLException {
+        String query = "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND LOWER(table_name) = LOWER(?) AND index_name = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, table);
+            stmt.setString(2, indexName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
 }
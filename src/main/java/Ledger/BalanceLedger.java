@@ -0,0 +1,182 @@
+package Ledger;
+
+import util.DBHelper;
+import util.LogUtil;
+import util.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 余额账本
+ * Balance Ledger
+ * 复式记账：每笔业务向 ledger_entry 追加两条金额相反的分录（转出账户为负，转入账户为正），
+ * 并在同一事务中累加两个账户的实时余额，余额与分录一起提交或回滚，查询余额只读一行。
+ * 用户账户ID即用户ID，余额在 user.balance 列；系统账户使用负数ID，余额在 account_balance 表，
+ * 按用户ID分成 ledger.balanceSlots 个槽分别累加，不同用户的业务不会争用同一行。
+ * 同一事务内先更新用户账户再更新系统账户，加锁顺序一致，避免死锁。
+ */
+public class BalanceLedger {
+    public static final int REVENUE_ACCOUNT = -1;  // 收入账户（租金、会员费，待汇总给管理员）
+    public static final int DEPOSIT_ACCOUNT = -2;  // 押金托管账户
+    public static final int CASH_ACCOUNT = -3;     // 外部资金账户（充值来源）
+
+    /**
+     * 分录类型，同一笔业务的两条分录类型和关联ID相同，金额之和为0
+     */
+    public enum EntryType {
+        Deposit,     // 租借扣押金：用户 -> 押金托管
+        Refund,      // 归还退押金：押金托管 -> 用户
+        Rent,        // 归还扣租金：用户 -> 收入
+        Recharge,    // 充值：外部资金 -> 用户
+        Membership,  // 会员费：用户 -> 收入
+        Settlement   // 收入汇总：收入 -> 管理员
+    }
+
+    private static final int BALANCE_SLOTS = Math.max(1, Integer.getInteger("ledger.balanceSlots", 16)); // 系统账户余额分槽数
+
+    private static final String POST_SQL =
+            "INSERT INTO ledger_entry (account_id, entry_type, reference_id, amount, created_time) VALUES (?, ?, ?, ?, NOW())";
+    private static final String USER_CREDIT_SQL = "UPDATE user SET balance = balance + ? WHERE id = ?";
+    private static final String SYSTEM_CREDIT_SQL =
+            "INSERT INTO account_balance (account_id, slot, balance) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance)";
+    private static final String USER_BALANCE_SQL = "SELECT balance FROM user WHERE id = ?";
+    private static final String SYSTEM_BALANCE_SQL = "SELECT COALESCE(SUM(balance), 0) FROM account_balance WHERE account_id = ?";
+
+    /**
+     * 租借扣押金
+     * @param userId 用户ID
+     * @param orderId 订单ID
+     * @param amount 押金金额（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postDeposit(int userId, int orderId, long amount) throws SQLException {
+        post(EntryType.Deposit, orderId, userId, DEPOSIT_ACCOUNT, amount);
+    }
+
+    /**
+     * 归还退押金
+     * @param userId 用户ID
+     * @param orderId 订单ID
+     * @param amount 押金金额（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postRefund(int userId, int orderId, long amount) throws SQLException {
+        post(EntryType.Refund, orderId, DEPOSIT_ACCOUNT, userId, amount);
+    }
+
+    /**
+     * 归还扣租金
+     * @param userId 用户ID
+     * @param orderId 订单ID
+     * @param amount 折扣后的租金（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postRent(int userId, int orderId, long amount) throws SQLException {
+        post(EntryType.Rent, orderId, userId, REVENUE_ACCOUNT, amount);
+    }
+
+    /**
+     * 充值
+     * @param userId 用户ID
+     * @param amount 充值金额（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postRecharge(int userId, long amount) throws SQLException {
+        post(EntryType.Recharge, userId, CASH_ACCOUNT, userId, amount);
+    }
+
+    /**
+     * 购买会员
+     * @param userId 用户ID
+     * @param amount 会员费（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postMembership(int userId, long amount) throws SQLException {
+        post(EntryType.Membership, userId, userId, REVENUE_ACCOUNT, amount);
+    }
+
+    /**
+     * 收入汇总到管理员账户
+     * @param adminId 管理员ID
+     * @param amount 汇总金额（分）
+     * @throws SQLException SQL异常
+     */
+    public static void postSettlement(int adminId, long amount) throws SQLException {
+        post(EntryType.Settlement, adminId, REVENUE_ACCOUNT, adminId, amount);
+    }
+
+    // 两条分录和两个账户的余额在同一事务中写入；调用方未开启事务时自行开启，保证借贷同时生效
+    // 每笔业务恰有一方是用户账户
+    private static void post(EntryType type, int referenceId, int fromAccount, int toAccount, long amount) throws SQLException {
+        if (amount <= 0) {
+            return;
+        }
+        Connection conn = DBHelper.getConnection();
+        boolean ownTransaction = conn.getAutoCommit();
+        if (ownTransaction) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            PreparedStatement stmt = DBHelper.prepareStatement(POST_SQL);
+            addLeg(stmt, fromAccount, type, referenceId, -amount);
+            addLeg(stmt, toAccount, type, referenceId, amount);
+            stmt.executeBatch();
+
+            int userAccount = fromAccount > 0 ? fromAccount : toAccount;
+            int systemAccount = fromAccount > 0 ? toAccount : fromAccount;
+            long userAmount = fromAccount > 0 ? -amount : amount;
+            PreparedStatement userStmt = DBHelper.prepareStatement(USER_CREDIT_SQL);
+            Money.set(userStmt, 1, userAmount);
+            userStmt.setInt(2, userAccount);
+            if (userStmt.executeUpdate() == 0) {
+                throw new SQLException("记账失败 - 用户账户不存在: " + userAccount);
+            }
+            PreparedStatement systemStmt = DBHelper.prepareStatement(SYSTEM_CREDIT_SQL);
+            systemStmt.setInt(1, systemAccount);
+            systemStmt.setInt(2, userAccount % BALANCE_SLOTS);
+            Money.set(systemStmt, 3, -userAmount);
+            systemStmt.executeUpdate();
+            if (ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("记账 - 类型: {}, 关联ID: {}, {} -> {}, 金额: {}", type, referenceId, fromAccount, toAccount, Money.format(amount));
+        }
+    }
+
+    private static void addLeg(PreparedStatement stmt, int accountId, EntryType type, int referenceId, long amount) throws SQLException {
+        stmt.setInt(1, accountId);
+        stmt.setString(2, type.toString());
+        stmt.setInt(3, referenceId);
+        Money.set(stmt, 4, amount);
+        stmt.addBatch();
+    }
+
+    /**
+     * 查询账户当前余额（已提交的分录）
+     * @param accountId 账户ID（用户ID或系统账户）
+     * @return 当前余额（分），用户不存在时返回0
+     * @throws SQLException SQL异常
+     */
+    public static long getBalance(int accountId) throws SQLException {
+        PreparedStatement stmt = DBHelper.prepareStatement(accountId > 0 ? USER_BALANCE_SQL : SYSTEM_BALANCE_SQL);
+        stmt.setInt(1, accountId);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? Money.get(rs, 1) : 0;
+        }
+    }
+}
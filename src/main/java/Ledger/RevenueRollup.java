@@ -0,0 +1,119 @@
+package Ledger;
+
+import util.DBHelper;
+import util.LogUtil;
+import util.Money;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 收入汇总服务
+ * Revenue Rollup
+ * 定时把收入账户（BalanceLedger.REVENUE_ACCOUNT）上累计的租金和会员费转入管理员账户。
+ * 租借归还和会员升级只追加收入分录，只有本服务的单个线程向管理员账户记账。
+ */
+public class RevenueRollup {
+    private static final int ROLLUP_INTERVAL = Integer.getInteger("revenue.rollupIntervalSeconds", 10); // 汇总间隔（秒）
+
+    private static final String ADMIN_SQL = "SELECT id FROM user WHERE status = 'Admin' ORDER BY id LIMIT 1";
+
+    private static RevenueRollup instance;
+    private final ScheduledExecutorService scheduler;
+    private boolean isRunning;
+
+    private RevenueRollup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "revenue-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        isRunning = false;
+    }
+
+    public static RevenueRollup getInstance() {
+        if (instance == null) {
+            synchronized (RevenueRollup.class) {
+                if (instance == null) {
+                    instance = new RevenueRollup();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (!isRunning) {
+            scheduler.scheduleWithFixedDelay(this::rollupSafely, ROLLUP_INTERVAL, ROLLUP_INTERVAL, TimeUnit.SECONDS);
+            isRunning = true;
+            LogUtil.info("收入汇总服务已启动，将每" + ROLLUP_INTERVAL + "秒汇总一次");
+        }
+    }
+
+    public synchronized void stop() {
+        if (isRunning) {
+            scheduler.shutdown();
+            isRunning = false;
+            LogUtil.info("收入汇总服务已停止");
+        }
+    }
+
+    /**
+     * 立即在汇总线程上执行一次汇总并等待完成（如管理员查看余额前）
+     * @return 本次汇总的金额（分）
+     * @throws SQLException 汇总失败
+     */
+    public long rollupNow() throws SQLException {
+        try {
+            return scheduler.submit(this::rollup).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待收入汇总被中断", e);
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+        }
+    }
+
+    private void rollupSafely() {
+        try {
+            rollup();
+        } catch (Exception e) {
+            LogUtil.error("收入汇总失败", e);
+        }
+    }
+
+    // 把收入账户当前余额整笔转给管理员（单线程执行，读取余额与记账之间不会有其他转出）
+    private long rollup() throws SQLException {
+        try {
+            int adminId = getAdminId();
+            if (adminId == 0) {
+                LogUtil.warning("收入汇总跳过 - 未找到管理员账户");
+                return 0;
+            }
+            long amount = BalanceLedger.getBalance(BalanceLedger.REVENUE_ACCOUNT);
+            if (amount <= 0) {
+                return 0;
+            }
+            BalanceLedger.postSettlement(adminId, amount);
+            if (LogUtil.isInfoEnabled()) {
+                LogUtil.info("收入汇总完成 - 管理员ID: {}, 金额: {}", adminId, Money.format(amount));
+            }
+            return amount;
+        } finally {
+            DBHelper.closeConnection();
+        }
+    }
+
+    private int getAdminId() throws SQLException {
+        ResultSet rs = DBHelper.executeQuery(ADMIN_SQL);
+        try {
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 import gui.LoginLayout;
+import Ledger.RevenueRollup;
+import User.MembershipExpiry;
 import util.BatteryMonitor;
 import util.LogUtil;
+import util.PricingEngine;
 import javax.swing.*;
 
 public class Main {
@@ -16,6 +19,12 @@ public class Main {
         // 启动电池监控服务，用于实时监控所有移动电源的状态
         BatteryMonitor.getInstance().start();
         LogUtil.info("电池监控服务初始化完成");
+        // 启动计费规则服务，加载并定时刷新 pricing_rule 表
+        PricingEngine.getInstance().start();
+        // 启动收入汇总服务，定时把租金和会员费流水汇总到管理员余额
+        RevenueRollup.getInstance().start();
+        // 启动会员到期服务，到期的 VIP/SVIP 用户自动降级为普通用户
+        MembershipExpiry.getInstance().start();
 
         // 在EDT（Event Dispatch Thread）线程中启动GUI，确保线程安全
         SwingUtilities.invokeLater(() -> {
@@ -0,0 +1,38 @@
+package Order;
+
+import java.sql.Timestamp;
+
+/**
+ * 进行中的租借
+ * Active Rental
+ * 当前租借列表的只读投影：订单信息连同移动电源的租金和电量一次查询得到
+ */
+public class ActiveRental {
+    private final int orderId;                 // 订单ID
+    private final int powerbankId;             // 移动电源ID
+    private final String brand;                // 移动电源品牌
+    private final Timestamp rentalStartTime;   // 租赁开始时间
+    private final long deposit;                // 押金（分）
+    private final long rentalPricePerHour;     // 每小时租金（分）
+    private final int batteryLevel;            // 当前电量
+
+    public ActiveRental(int orderId, int powerbankId, String brand, Timestamp rentalStartTime,
+                        long deposit, long rentalPricePerHour, int batteryLevel) {
+        this.orderId = orderId;
+        this.powerbankId = powerbankId;
+        this.brand = brand;
+        this.rentalStartTime = rentalStartTime;
+        this.deposit = deposit;
+        this.rentalPricePerHour = rentalPricePerHour;
+        this.batteryLevel = batteryLevel;
+    }
+
+    // Getters
+    public int getOrderId() { return orderId; }
+    public int getPowerbankId() { return powerbankId; }
+    public String getBrand() { return brand; }
+    public Timestamp getRentalStartTime() { return rentalStartTime; }
+    public long getDeposit() { return deposit; }
+    public long getRentalPricePerHour() { return rentalPricePerHour; }
+    public int getBatteryLevel() { return batteryLevel; }
+}
@@ -1,8 +1,11 @@
 package Order;
 
-import User.User;
+import Commodity.Commodity;
+import Commodity.PowerBankInventory;
+import Ledger.BalanceLedger;
 import util.DBHelper;
 import util.LogUtil;
+import util.Money;
 import util.Transaction;
 
 import java.sql.*;
@@ -21,11 +24,11 @@ public class Order {
     private int powerbankId;           // 移动电源ID
     private String brand;              // 移动电源品牌
     private int rentalDurationHours;   // 租赁时长（小时）
-    private double totalCost;          // 总费用
+    private long totalCost;            // 总费用（分）
     private String orderCode;          // 订单编号
     private Timestamp rentalStartTime; // 租赁开始时间
     private Timestamp returnTime;      // 归还时间
-    private double deposit;            // 押金
+    private long deposit;              // 押金（分）
 
     /**
      * 默认构造函数
@@ -39,14 +42,14 @@ public class Order {
      * @param powerbankId 移动电源ID
      * @param brand 移动电源品牌
      * @param rentalDurationHours 租赁时长
-     * @param totalCost 总费用
+     * @param totalCost 总费用（分）
      * @param orderCode 订单编号
      * @param rentalStartTime 租赁开始时间
      * @param returnTime 归还时间
-     * @param deposit 押金
+     * @param deposit 押金（分）
      */
     public Order(int id, int userId, int powerbankId, String brand, int rentalDurationHours, 
-                double totalCost, String orderCode, Timestamp rentalStartTime, Timestamp returnTime, double deposit) {
+                long totalCost, String orderCode, Timestamp rentalStartTime, Timestamp returnTime, long deposit) {
         this.id = id;
         this.userId = userId;
         this.powerbankId = powerbankId;
@@ -70,16 +73,16 @@ public class Order {
     public void setBrand(String brand) { this.brand = brand; }
     public int getRentalDurationHours() { return rentalDurationHours; }
     public void setRentalDurationHours(int rentalDurationHours) { this.rentalDurationHours = rentalDurationHours; }
-    public double getTotalCost() { return totalCost; }
-    public void setTotalCost(double totalCost) { this.totalCost = totalCost; }
+    public long getTotalCost() { return totalCost; }
+    public void setTotalCost(long totalCost) { this.totalCost = totalCost; }
     public String getOrderCode() { return orderCode; }
     public void setOrderCode(String orderCode) { this.orderCode = orderCode; }
     public Timestamp getRentalStartTime() { return rentalStartTime; }
     public void setRentalStartTime(Timestamp rentalStartTime) { this.rentalStartTime = rentalStartTime; }
     public Timestamp getReturnTime() { return returnTime; }
     public void setReturnTime(Timestamp returnTime) { this.returnTime = returnTime; }
-    public double getDeposit() { return deposit; }
-    public void setDeposit(double deposit) { this.deposit = deposit; }
+    public long getDeposit() { return deposit; }
+    public void setDeposit(long deposit) { this.deposit = deposit; }
 
     /**
      * 获取用户当前租借的订单
@@ -105,13 +108,50 @@ public class Order {
             order.setBrand(rs.getString("brand"));
             order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
             order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
+            order.setTotalCost(Money.get(rs, "total_cost"));
             order.setOrderCode(rs.getString("order_code"));
-            order.setDeposit(rs.getDouble("deposit"));
+            order.setDeposit(Money.get(rs, "deposit"));
             rentals.add(order);
-            LogUtil.debug("找到租借记录 - 订单ID: " + order.getId() + ", 充电宝ID: " + order.getPowerbankId());
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("找到租借记录 - 订单ID: {}, 充电宝ID: {}", order.getId(), order.getPowerbankId());
+            }
+        }
+        DBHelper.closeResources(rs, null);
+        return rentals;
+    }
+
+    /**
+     * 获取用户进行中的租借（连同移动电源租金和电量，一次查询）
+     * @param userId 用户ID
+     * @return 进行中的租借列表（按租借时间倒序）
+     * @throws SQLException SQL异常
+     */
+    public static List<ActiveRental> getActiveRentals(int userId) throws SQLException {
+        List<ActiveRental> rentals = new ArrayList<>();
+        String sql = "SELECT o.id, o.powerbank_id, o.brand, o.rental_start_time, o.deposit, " +
+                    "p.rental_price_per_hour, p.battery_level " +
+                    "FROM `Order` o " +
+                    "JOIN powerbank p ON o.powerbank_id = p.id " +
+                    "WHERE o.user_id = ? " +
+                    "AND o.rental_duration_hours = 0 " +
+                    "ORDER BY o.rental_start_time DESC";
+
+        var rs = DBHelper.executeQuery(sql, userId);
+        while (rs.next()) {
+            rentals.add(new ActiveRental(
+                rs.getInt("id"),
+                rs.getInt("powerbank_id"),
+                rs.getString("brand"),
+                rs.getTimestamp("rental_start_time"),
+                Money.get(rs, "deposit"),
+                Money.get(rs, "rental_price_per_hour"),
+                rs.getInt("battery_level")
+            ));
         }
         DBHelper.closeResources(rs, null);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("查询进行中的租借 - 用户ID: {}, 数量: {}", userId, rentals.size());
+        }
         return rentals;
     }
 
@@ -130,79 +170,85 @@ public class Order {
         Connection conn = DBHelper.getConnection();
         conn.setAutoCommit(false);
         try {
-            // 检查用户会员状态和余额
-            String checkUserSql = "SELECT balance, status FROM user WHERE id = ? FOR UPDATE";
-            PreparedStatement checkUserStmt = conn.prepareStatement(checkUserSql);
+            // 检查用户会员状态和余额（锁定该用户行，串行化同一用户的扣款检查）
+            String checkUserSql = "SELECT status FROM user WHERE id = ? FOR UPDATE";
+            PreparedStatement checkUserStmt = DBHelper.prepareStatement(checkUserSql);
             checkUserStmt.setInt(1, userId);
             ResultSet userRs = checkUserStmt.executeQuery();
-
-            if (!userRs.next()) {
-                LogUtil.error("租借创建失败 - 用户不存在");
-                return false;
+            String status;
+            try {
+                if (!userRs.next()) {
+                    LogUtil.error("租借创建失败 - 用户不存在");
+                    conn.rollback();
+                    return false;
+                }
+                status = userRs.getString("status");
+            } finally {
+                DBHelper.closeResources(userRs, null);
             }
-
-            double balance = userRs.getDouble("balance");
-            String status = userRs.getString("status");
+            long balance = BalanceLedger.getBalance(userId);
             
             // 计算所需金额（押金）
-            double requiredAmount = Transaction.calculateDeposit(status);
-            LogUtil.debug("所需押金金额: " + requiredAmount);
+            long requiredAmount = Transaction.calculateDeposit(status);
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("所需押金金额: {}", requiredAmount);
+            }
             
             if (!Transaction.isBalanceSufficient(balance, requiredAmount)) {
                 LogUtil.warning("租借创建失败 - 余额不足");
+                conn.rollback();
                 return false;
             }
 
             // 检查电源是否可用
             String checkSql = "SELECT status FROM powerbank WHERE id = ? FOR UPDATE";
-            PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+            PreparedStatement checkStmt = DBHelper.prepareStatement(checkSql);
             checkStmt.setInt(1, powerbankId);
             ResultSet rs = checkStmt.executeQuery();
-            
-            if (!rs.next() || !"Available".equals(rs.getString("status"))) {
-                LogUtil.warning("租借创建失败 - 充电宝不可用");
-                return false;
-            }
-            
-            // 扣除押金
-            if (!Transaction.isVipOrSvip(status)) {
-                String updateBalanceSql = "UPDATE user SET balance = balance - ? WHERE id = ?";
-                PreparedStatement updateBalanceStmt = conn.prepareStatement(updateBalanceSql);
-                updateBalanceStmt.setDouble(1, requiredAmount);
-                updateBalanceStmt.setInt(2, userId);
-                int updateResult = updateBalanceStmt.executeUpdate();
-                if (updateResult > 0) {
-                    LogUtil.info("已扣除押金: " + requiredAmount + ", 新余额: " + (balance - requiredAmount));
+            try {
+                if (!rs.next() || !"Available".equals(rs.getString("status"))) {
+                    LogUtil.warning("租借创建失败 - 充电宝不可用");
+                    conn.rollback();
+                    return false;
                 }
-            } else {
-                LogUtil.info("VIP/SVIP用户，无需押金");
+            } finally {
+                DBHelper.closeResources(rs, null);
             }
-
+            
             // 创建订单
             String createOrderSql = "INSERT INTO `Order` (user_id, powerbank_id, brand, rental_start_time, deposit) VALUES (?, ?, ?, NOW(), ?)";
-            PreparedStatement orderStmt = conn.prepareStatement(createOrderSql);
+            PreparedStatement orderStmt = DBHelper.prepareStatement(createOrderSql, Statement.RETURN_GENERATED_KEYS);
             orderStmt.setInt(1, userId);
             orderStmt.setInt(2, powerbankId);
             orderStmt.setString(3, brand);
-            orderStmt.setDouble(4, requiredAmount);
+            Money.set(orderStmt, 4, requiredAmount);
             int orderResult = orderStmt.executeUpdate();
+            int orderId = 0;
+            try (ResultSet keys = orderStmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    orderId = keys.getInt(1);
+                }
+            }
 
             if (orderResult > 0) {
-                // 验证订单是否正确创建
-                String verifyOrderSql = "SELECT * FROM `Order` WHERE id = LAST_INSERT_ID()";
-                PreparedStatement verifyStmt = conn.prepareStatement(verifyOrderSql);
-                ResultSet verifyRs = verifyStmt.executeQuery();
-                if (verifyRs.next()) {
-                    LogUtil.debug("订单创建已验证 - 押金: " + verifyRs.getDouble("deposit"));
+                // 扣除押金
+                if (requiredAmount > 0) {
+                    BalanceLedger.postDeposit(userId, orderId, requiredAmount);
+                    LogUtil.info("已扣除押金: " + Money.format(requiredAmount) + ", 新余额: " + Money.format(balance - requiredAmount));
+                } else {
+                    LogUtil.info(status + "用户，无需押金");
                 }
+
                 // 更新电源状态
                 String updatePowerBankSql = "UPDATE powerbank SET status = 'InUse' WHERE id = ?";
-                PreparedStatement powerBankStmt = conn.prepareStatement(updatePowerBankSql);
+                PreparedStatement powerBankStmt = DBHelper.prepareStatement(updatePowerBankSql);
                 powerBankStmt.setInt(1, powerbankId);
                 int powerBankResult = powerBankStmt.executeUpdate();
 
                 if (powerBankResult > 0) {
                     conn.commit();
+                    PowerBankInventory.getInstance().refresh(powerbankId);
+                    OrderSearchIndex.getInstance().refresh(userId, orderId);
                     LogUtil.info("租借订单创建成功");
                     return true;
                 } else {
@@ -229,70 +275,52 @@ public class Order {
      * @param orderId 订单ID
      * @param powerbankId 移动电源ID
      * @param hours 租赁时长（小时）
-     * @param totalCost 总费用
+     * @param totalCost 总费用（分）
      * @param orderCode 订单编号
-     * @return 是否归还成功
+     * @return 实际扣除的租金（分，按数据库中的会员状态计费），订单不存在或已归还时返回-1
      * @throws SQLException SQL异常
      */
-    public static boolean returnRental(int orderId, int powerbankId, long hours, double totalCost, String orderCode) throws SQLException {
+    public static long returnRental(int orderId, int powerbankId, long hours, long totalCost, String orderCode) throws SQLException {
         LogUtil.info("开始归还流程 - 订单ID: " + orderId + ", 充电宝ID: " + powerbankId + ", 时长: " + hours + " 小时");
 
         // 开启事务
         Connection conn = DBHelper.getConnection();
         conn.setAutoCommit(false);
         try {
-            // 获取管理员账户
-            User admin = User.getAdminUser();
-            if (admin == null) {
-                throw new SQLException("无法找到管理员账户");
-            }
-
             // 获取订单和用户信息
-            String getOrderSql = "SELECT o.user_id, o.deposit, u.status, u.balance " +
+            String getOrderSql = "SELECT o.user_id, o.deposit, o.brand, o.rental_start_time, u.status " +
                                "FROM `Order` o " +
                                "JOIN user u ON o.user_id = u.id " +
-                               "WHERE o.id = ? FOR UPDATE";
-            PreparedStatement getOrderStmt = conn.prepareStatement(getOrderSql);
+                               "WHERE o.id = ? AND o.rental_duration_hours = 0 FOR UPDATE"; // 只锁定未归还的订单
+            PreparedStatement getOrderStmt = DBHelper.prepareStatement(getOrderSql);
             getOrderStmt.setInt(1, orderId);
             ResultSet orderRs = getOrderStmt.executeQuery();
 
             if (!orderRs.next()) {
-                LogUtil.warning("归还失败 - 订单不存在");
-                return false;
+                // 订单不存在或已被归还（重复提交时第二次在锁释放后读到已归还状态）
+                LogUtil.warning("归还失败 - 订单不存在或已归还");
+                DBHelper.closeResources(orderRs, null);
+                conn.rollback();
+                return -1;
             }
 
             int userId = orderRs.getInt("user_id");
-            double deposit = orderRs.getDouble("deposit");
+            long deposit = Money.get(orderRs, "deposit");
             String userStatus = orderRs.getString("status");
-            double currentBalance = orderRs.getDouble("balance");
-
-            // 计算实际费用（应用会员折扣）
-            double actualCost = Transaction.calculateActualCost(totalCost, userStatus);
-            double newBalance = Transaction.calculateReturnBalance(currentBalance, deposit, actualCost);
-
-            LogUtil.debug("用户当前余额: " + currentBalance + ", 押金: " + deposit + 
-                         ", 原始费用: " + totalCost + ", 折扣后费用: " + actualCost + 
-                         ", 归还后余额: " + newBalance);
-
-            // 更新用户余额（退还押金并扣除折扣后的租金）
-            String updateUserSql = "UPDATE user SET balance = balance + ? - ? WHERE id = ?";
-            PreparedStatement userStmt = conn.prepareStatement(updateUserSql);
-            userStmt.setDouble(1, deposit);
-            userStmt.setDouble(2, actualCost);
-            userStmt.setInt(3, userId);
-            int updateResult = userStmt.executeUpdate();
-            
-            if (updateResult > 0) {
-                LogUtil.info("已退还押金: " + deposit + ", 已扣除租金: " + actualCost + 
-                            ", 新余额: " + (currentBalance + deposit - actualCost));
+            String brand = orderRs.getString("brand");
+            int startHour = orderRs.getTimestamp("rental_start_time").toLocalDateTime().getHour();
+
+            // 计算实际费用（应用会员、品牌、时段和时长阶梯规则）
+            long actualCost = Transaction.calculateActualCost(totalCost, userStatus, brand, startHour, hours);
+
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("押金: " + Money.format(deposit) + ", 原始费用: " + Money.format(totalCost) + ", 折扣后费用: " + Money.format(actualCost));
             }
 
-            // 更新管理员余额（增加折扣后的租金收入）
-            String updateAdminSql = "UPDATE user SET balance = balance + ? WHERE id = ?";
-            PreparedStatement adminStmt = conn.prepareStatement(updateAdminSql);
-            adminStmt.setDouble(1, actualCost);
-            adminStmt.setInt(2, admin.getId());
-            adminStmt.executeUpdate();
+            // 退还押金、扣除折扣后的租金（租金记入收入账户，由 RevenueRollup 汇总给管理员）
+            BalanceLedger.postRefund(userId, orderId, deposit);
+            BalanceLedger.postRent(userId, orderId, actualCost);
+            LogUtil.info("已退还押金: " + Money.format(deposit) + ", 已扣除租金: " + Money.format(actualCost));
 
             // 更新订单（记录折扣后的实际费用）
             String updateOrderSql = "UPDATE `Order` SET " +
@@ -301,22 +329,24 @@ public class Order {
                                  "order_code = ?, " +
                                  "return_time = NOW() " +
                                  "WHERE id = ?";
-            PreparedStatement orderStmt = conn.prepareStatement(updateOrderSql);
+            PreparedStatement orderStmt = DBHelper.prepareStatement(updateOrderSql);
             orderStmt.setLong(1, hours);
-            orderStmt.setDouble(2, actualCost);  // 保存折扣后的实际费用
+            Money.set(orderStmt, 2, actualCost);  // 保存折扣后的实际费用
             orderStmt.setString(3, orderCode);
             orderStmt.setInt(4, orderId);
             orderStmt.executeUpdate();
 
             // 更新电源状态
             String updatePowerBankSql = "UPDATE powerbank SET status = 'Available' WHERE id = ?";
-            PreparedStatement powerBankStmt = conn.prepareStatement(updatePowerBankSql);
+            PreparedStatement powerBankStmt = DBHelper.prepareStatement(updatePowerBankSql);
             powerBankStmt.setInt(1, powerbankId);
             powerBankStmt.executeUpdate();
 
             conn.commit();
+            PowerBankInventory.getInstance().refresh(powerbankId);
+            OrderSearchIndex.getInstance().refresh(userId, orderId);
             LogUtil.info("归还成功 - 订单ID: " + orderId + ", 充电宝ID: " + powerbankId);
-            return true;
+            return actualCost;
         } catch (SQLException e) {
             LogUtil.error("归还失败，正在回滚", e);
             conn.rollback();
@@ -339,7 +369,9 @@ public class Order {
                     "AND o.rental_duration_hours = 0 " +
                     "ORDER BY o.rental_start_time DESC LIMIT 1";
         
-        System.out.println("查询租借信息 - SQL: " + sql.replace("?", String.valueOf(powerbankId)));
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("查询租借信息 - 充电宝ID: {}", powerbankId);
+        }
         var rs = DBHelper.executeQuery(sql, powerbankId);
         if (rs.next()) {
             Order order = new Order();
@@ -349,14 +381,18 @@ public class Order {
             order.setBrand(rs.getString("brand"));
             order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
             order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
+            order.setTotalCost(Money.get(rs, "total_cost"));
             order.setOrderCode(rs.getString("order_code"));
-            order.setDeposit(rs.getDouble("deposit"));
-            System.out.println("找到租借订单 - 订单ID: " + order.getId() + ", 用户ID: " + order.getUserId());
+            order.setDeposit(Money.get(rs, "deposit"));
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("找到租借订单 - 订单ID: {}, 用户ID: {}", order.getId(), order.getUserId());
+            }
             DBHelper.closeResources(rs, null);
             return order;
         }
-        System.out.println("未找到租借信息");
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("未找到租借信息 - 充电宝ID: {}", powerbankId);
+        }
         DBHelper.closeResources(rs, null);
         return null;
     }
@@ -373,7 +409,9 @@ public class Order {
                     "JOIN powerbank p ON o.powerbank_id = p.id " +
                     "WHERE o.id = ? AND o.rental_duration_hours = 0";
         
-        System.out.println("执行查询订单信息 - 订单ID: " + orderId);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("执行查询订单信息 - 订单ID: {}", orderId);
+        }
         var rs = DBHelper.executeQuery(sql, orderId);
         
         if (rs.next()) {
@@ -384,14 +422,18 @@ public class Order {
             order.setBrand(rs.getString("brand"));
             order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
             order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
+            order.setTotalCost(Money.get(rs, "total_cost"));
             order.setOrderCode(rs.getString("order_code"));
-            order.setDeposit(rs.getDouble("deposit"));
-            System.out.println("找到订单信息 - 电源ID: " + order.getPowerbankId());
+            order.setDeposit(Money.get(rs, "deposit"));
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("找到订单信息 - 电源ID: {}", order.getPowerbankId());
+            }
             DBHelper.closeResources(rs, null);
             return order;
         }
-        System.out.println("未找到订单信息");
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("未找到订单信息 - 订单ID: {}", orderId);
+        }
         DBHelper.closeResources(rs, null);
         return null;
     }
@@ -408,58 +450,53 @@ public class Order {
         
         var rs = DBHelper.executeQuery(sql, userId);
         while (rs.next()) {
-            Order order = new Order();
-            order.setId(rs.getInt("id"));
-            order.setUserId(rs.getInt("user_id"));
-            order.setPowerbankId(rs.getInt("powerbank_id"));
-            order.setBrand(rs.getString("brand"));
-            order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
-            order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
-            order.setOrderCode(rs.getString("order_code"));
-            order.setReturnTime(rs.getTimestamp("return_time"));
-            order.setDeposit(rs.getDouble("deposit"));
-            orders.add(order);
+            orders.add(fromResultSet(rs));
         }
         DBHelper.closeResources(rs, null);
         return orders;
     }
 
     /**
-     * 搜索订单
+     * 按游标分页获取用户订单历史（按租借时间、订单ID倒序）
+     * 使用 (user_id, rental_start_time, id) 复合索引定位，翻页代价与页码无关
      * @param userId 用户ID
-     * @param keyword 搜索关键词
-     * @return 搜索结果订单列表
+     * @param afterStartTime 上一页最后一条订单的租借时间，首页传null
+     * @param afterId 上一页最后一条订单的ID，首页忽略
+     * @param limit 每页条数
+     * @return 订单列表，少于limit条表示没有更多数据
      * @throws SQLException SQL异常
      */
-    public static List<Order> searchOrders(int userId, String keyword) throws SQLException {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM `Order` WHERE user_id = ? AND " +
-                    "(order_code LIKE ? OR brand LIKE ? OR " +
-                    "CAST(powerbank_id AS CHAR) LIKE ? OR " +
-                    "CAST(total_cost AS CHAR) LIKE ?) " +
-                    "ORDER BY rental_start_time DESC";
-        
-        String searchPattern = "%" + keyword + "%";
-        var rs = DBHelper.executeQuery(sql, userId, searchPattern, searchPattern, searchPattern, searchPattern);
+    public static List<Order> getOrderHistory(int userId, Timestamp afterStartTime, int afterId, int limit) throws SQLException {
+        List<Order> orders = new ArrayList<>(limit);
+        ResultSet rs;
+        if (afterStartTime == null) {
+            String sql = "SELECT * FROM `Order` WHERE user_id = ? " +
+                        "ORDER BY rental_start_time DESC, id DESC LIMIT ?";
+            rs = DBHelper.executeQuery(sql, userId, limit);
+        } else {
+            String sql = "SELECT * FROM `Order` WHERE user_id = ? " +
+                        "AND (rental_start_time < ? OR (rental_start_time = ? AND id < ?)) " +
+                        "ORDER BY rental_start_time DESC, id DESC LIMIT ?";
+            rs = DBHelper.executeQuery(sql, userId, afterStartTime, afterStartTime, afterId, limit);
+        }
         while (rs.next()) {
-            Order order = new Order();
-            order.setId(rs.getInt("id"));
-            order.setUserId(rs.getInt("user_id"));
-            order.setPowerbankId(rs.getInt("powerbank_id"));
-            order.setBrand(rs.getString("brand"));
-            order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
-            order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
-            order.setOrderCode(rs.getString("order_code"));
-            order.setReturnTime(rs.getTimestamp("return_time"));
-            order.setDeposit(rs.getDouble("deposit"));
-            orders.add(order);
+            orders.add(fromResultSet(rs));
         }
         DBHelper.closeResources(rs, null);
         return orders;
     }
 
+    /**
+     * 搜索订单（匹配订单编号、品牌、电源ID和费用，见 OrderSearchIndex）
+     * @param userId 用户ID
+     * @param keyword 搜索关键词
+     * @return 搜索结果订单列表
+     * @throws SQLException SQL异常
+     */
+    public static List<Order> searchOrders(int userId, String keyword) throws SQLException {
+        return OrderSearchIndex.getInstance().search(userId, keyword);
+    }
+
     /**
      * 删除订单
      * @param orderId 订单ID
@@ -468,7 +505,11 @@ public class Order {
      */
     public static boolean deleteOrder(int orderId) throws SQLException {
         String sql = "DELETE FROM `Order` WHERE id = ?";
-        return DBHelper.executeUpdate(sql, orderId) > 0;
+        boolean deleted = DBHelper.executeUpdate(sql, orderId) > 0;
+        if (deleted) {
+            OrderSearchIndex.getInstance().remove(orderId);
+        }
+        return deleted;
     }
 
     /**
@@ -488,14 +529,35 @@ public class Order {
             order.setBrand(rs.getString("brand"));
             order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
             order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
-            order.setTotalCost(rs.getDouble("total_cost"));
+            order.setTotalCost(Money.get(rs, "total_cost"));
             order.setOrderCode(rs.getString("order_code"));
             order.setReturnTime(rs.getTimestamp("return_time"));
-            order.setDeposit(rs.getDouble("deposit"));
+            order.setDeposit(Money.get(rs, "deposit"));
             DBHelper.closeResources(rs, null);
             return order;
         }
         DBHelper.closeResources(rs, null);
         return null;
     }
+
+    /**
+     * 将结果集当前行映射为订单对象（需包含订单表全部列）
+     * @param rs 结果集（已定位到当前行）
+     * @return 订单对象
+     * @throws SQLException SQL异常
+     */
+    public static Order fromResultSet(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getInt("id"));
+        order.setUserId(rs.getInt("user_id"));
+        order.setPowerbankId(rs.getInt("powerbank_id"));
+        order.setBrand(rs.getString("brand"));
+        order.setRentalStartTime(rs.getTimestamp("rental_start_time"));
+        order.setRentalDurationHours(rs.getInt("rental_duration_hours"));
+        order.setTotalCost(Money.get(rs, "total_cost"));
+        order.setOrderCode(rs.getString("order_code"));
+        order.setReturnTime(rs.getTimestamp("return_time"));
+        order.setDeposit(Money.get(rs, "deposit"));
+        return order;
+    }
 }
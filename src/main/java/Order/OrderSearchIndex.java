@@ -0,0 +1,247 @@
+package Order;
+
+import util.DBHelper;
+import util.LogUtil;
+import util.Money;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 订单搜索索引
+ * Order Search Index
+ * 按用户在内存中维护订单编号、品牌、电源ID和费用的三元组（trigram）倒排索引，代替 LIKE '%kw%' 全表扫描。
+ * 用户首次搜索时加载其全部订单，之后随租借、归还、删除增量更新；超过有效期后重新加载，以读到其他进程的修改。
+ * 关键词不少于3个字符时先按三元组求交集得到候选订单，再逐字段校验子串；更短的关键词直接在内存中逐条匹配。
+ * 与原 SQL 一致，匹配不区分大小写，且关键词必须完整出现在某一个字段内。
+ */
+public class OrderSearchIndex {
+    private static final int MAX_USERS = Integer.getInteger("order.searchIndexUsers", 64);             // 最多缓存的用户数
+    private static final long TTL_MILLIS = Long.getLong("order.searchIndexTtlSeconds", 300) * 1000;   // 索引有效期
+    private static final Comparator<Order> NEWEST_FIRST = Comparator
+            .comparing(Order::getRentalStartTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Comparator.comparingInt(Order::getId).reversed());
+
+    private static OrderSearchIndex instance;
+
+    // 按访问顺序淘汰最久未使用的用户索引
+    private final Map<Integer, UserIndex> users = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, UserIndex> eldest) {
+            return size() > MAX_USERS;
+        }
+    };
+
+    private OrderSearchIndex() {}
+
+    public static OrderSearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (OrderSearchIndex.class) {
+                if (instance == null) {
+                    instance = new OrderSearchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 搜索用户订单
+     * @param userId 用户ID
+     * @param keyword 搜索关键词
+     * @return 匹配的订单，按租借开始时间倒序
+     * @throws SQLException SQL异常
+     */
+    public List<Order> search(int userId, String keyword) throws SQLException {
+        UserIndex index;
+        synchronized (users) {
+            index = users.computeIfAbsent(userId, UserIndex::new);
+        }
+        return index.search(keyword.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 订单新增或修改后更新索引（该用户尚未建立索引时忽略）
+     * @param userId 用户ID
+     * @param orderId 订单ID
+     */
+    public void refresh(int userId, int orderId) {
+        UserIndex index;
+        synchronized (users) {
+            index = users.get(userId);
+        }
+        if (index == null) {
+            return;
+        }
+        try {
+            index.refresh(orderId);
+        } catch (SQLException e) {
+            // 更新失败时丢弃该用户的索引，下次搜索重新加载
+            LogUtil.warning("更新订单搜索索引失败 - 订单ID: " + orderId + ", 原因: " + e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 订单删除后从索引中移除
+     * @param orderId 订单ID
+     */
+    public void remove(int orderId) {
+        List<UserIndex> indexes;
+        synchronized (users) {
+            indexes = new ArrayList<>(users.values());
+        }
+        for (UserIndex index : indexes) {
+            index.remove(orderId);
+        }
+    }
+
+    /**
+     * 丢弃用户索引
+     * @param userId 用户ID
+     */
+    public void invalidate(int userId) {
+        synchronized (users) {
+            users.remove(userId);
+        }
+    }
+
+    // 单个用户的倒排索引，所有操作在对象锁内完成
+    private static final class UserIndex {
+        private final int userId;
+        private final List<Order> orders = new ArrayList<>();            // 槽位 -> 订单，删除后为 null
+        private final List<String[]> fields = new ArrayList<>();          // 槽位 -> 小写的可搜索字段
+        private final Map<Integer, Integer> slots = new HashMap<>();      // 订单ID -> 槽位
+        private final Map<Long, BitSet> postings = new HashMap<>();       // 三元组 -> 槽位集合
+        private long loadedAt;
+
+        UserIndex(int userId) {
+            this.userId = userId;
+        }
+
+        synchronized List<Order> search(String keyword) throws SQLException {
+            if (loadedAt == 0 || System.currentTimeMillis() - loadedAt > TTL_MILLIS) {
+                load();
+            }
+            List<Order> result = new ArrayList<>();
+            if (keyword.length() < 3) {
+                for (int slot = 0; slot < orders.size(); slot++) {
+                    if (orders.get(slot) != null && matches(slot, keyword)) {
+                        result.add(orders.get(slot));
+                    }
+                }
+            } else {
+                BitSet candidates = null;
+                for (int i = 0; i + 3 <= keyword.length(); i++) {
+                    BitSet posting = postings.get(trigram(keyword, i));
+                    if (posting == null) {
+                        return result;
+                    }
+                    if (candidates == null) {
+                        candidates = (BitSet) posting.clone();
+                    } else {
+                        candidates.and(posting);
+                    }
+                }
+                for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    if (matches(slot, keyword)) {
+                        result.add(orders.get(slot));
+                    }
+                }
+            }
+            result.sort(NEWEST_FIRST);
+            return result;
+        }
+
+        synchronized void refresh(int orderId) throws SQLException {
+            if (loadedAt == 0) {
+                return; // 尚未加载，首次搜索时会读到最新数据
+            }
+            ResultSet rs = DBHelper.executeQuery("SELECT * FROM `Order` WHERE id = ?", orderId);
+            try {
+                remove(orderId);
+                if (rs.next() && rs.getInt("user_id") == userId) {
+                    add(Order.fromResultSet(rs));
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+        }
+
+        synchronized void remove(int orderId) {
+            Integer slot = slots.remove(orderId);
+            if (slot == null) {
+                return;
+            }
+            for (String field : fields.get(slot)) {
+                for (int i = 0; i + 3 <= field.length(); i++) {
+                    BitSet posting = postings.get(trigram(field, i));
+                    if (posting != null) {
+                        posting.clear(slot);
+                    }
+                }
+            }
+            orders.set(slot, null);
+            fields.set(slot, null);
+        }
+
+        private void load() throws SQLException {
+            orders.clear();
+            fields.clear();
+            slots.clear();
+            postings.clear();
+            ResultSet rs = DBHelper.executeQuery("SELECT * FROM `Order` WHERE user_id = ?", userId);
+            try {
+                while (rs.next()) {
+                    add(Order.fromResultSet(rs));
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+            loadedAt = System.currentTimeMillis();
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("订单搜索索引已加载 - 用户ID: {}, 订单数: {}", userId, orders.size());
+            }
+        }
+
+        private void add(Order order) {
+            int slot = orders.size();
+            String[] searchable = {
+                    order.getOrderCode() == null ? "" : order.getOrderCode().toLowerCase(Locale.ROOT),
+                    order.getBrand() == null ? "" : order.getBrand().toLowerCase(Locale.ROOT),
+                    String.valueOf(order.getPowerbankId()),
+                    Money.format(order.getTotalCost())
+            };
+            orders.add(order);
+            fields.add(searchable);
+            slots.put(order.getId(), slot);
+            for (String field : searchable) {
+                for (int i = 0; i + 3 <= field.length(); i++) {
+                    postings.computeIfAbsent(trigram(field, i), k -> new BitSet()).set(slot);
+                }
+            }
+        }
+
+        private boolean matches(int slot, String keyword) {
+            for (String field : fields.get(slot)) {
+                if (field.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // 三个字符打包为一个 long，避免创建子串
+        private static long trigram(String text, int start) {
+            return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+        }
+    }
+}
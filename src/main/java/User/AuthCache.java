@@ -0,0 +1,97 @@
+package User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 登录凭据缓存
+ * Authentication Cache
+ * 缓存最近登录成功的用户，短时间内重复登录（如部署后集中登录）不再查询 User 表。
+ * 容量有上限（按最近使用淘汰），条目超过有效期后失效；只缓存成功的登录，用密码的 SHA-256 摘要做常量时间比较。
+ * 用户被修改、改密码、改状态或删除时由 User 按用户ID使缓存失效。
+ */
+public class AuthCache {
+    private static final int MAX_ENTRIES = Integer.getInteger("auth.cacheSize", 1024);              // 最多缓存的用户数
+    private static final long TTL_MILLIS = Long.getLong("auth.cacheTtlSeconds", 300) * 1000;       // 条目有效期
+
+    // 用户名 -> 凭据，按访问顺序淘汰
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private AuthCache() {}
+
+    /**
+     * 查找缓存的登录结果
+     * @param username 用户名
+     * @param password 密码
+     * @return 用户副本；未缓存、已过期或密码不符时返回 null
+     */
+    public static User get(String username, String password) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(username);
+            if (entry != null && System.currentTimeMillis() > entry.expiresAt) {
+                entries.remove(username);
+                entry = null;
+            }
+        }
+        if (entry == null || !MessageDigest.isEqual(entry.passwordDigest, digest(password))) {
+            return null;
+        }
+        return copyOf(entry.user);
+    }
+
+    /**
+     * 缓存登录成功的用户
+     * @param user 用户
+     * @param password 登录时使用的密码
+     */
+    public static void put(User user, String password) {
+        Entry entry = new Entry(copyOf(user), digest(password), System.currentTimeMillis() + TTL_MILLIS);
+        synchronized (entries) {
+            entries.put(user.getUsername(), entry);
+        }
+    }
+
+    /**
+     * 使指定用户的缓存失效
+     * @param userId 用户ID
+     */
+    public static void invalidate(int userId) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.user.getId() == userId);
+        }
+    }
+
+    private static byte[] digest(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getUsername(), user.getPhone(), user.getStatus(), user.getPassword(),
+                user.getBalance(), user.getExpiresTime(), user.getAvatar());
+    }
+
+    private static final class Entry {
+        final User user;
+        final byte[] passwordDigest;
+        final long expiresAt;
+
+        Entry(User user, byte[] passwordDigest, long expiresAt) {
+            this.user = user;
+            this.passwordDigest = passwordDigest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
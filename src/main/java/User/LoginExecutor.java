@@ -0,0 +1,112 @@
+package User;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录校验线程池
+ * Login Executor
+ * 密码哈希校验专用的有界线程池：线程数和队列长度固定，队列满时立即拒绝新的登录请求，
+ * 避免集中登录时排队时间无限增长。记录排队时间、执行时间和拒绝次数，供日志和监控使用。
+ */
+public class LoginExecutor {
+    private static final int THREADS = Integer.getInteger("auth.verifyThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));          // 校验线程数
+    private static final int QUEUE_CAPACITY = Integer.getInteger("auth.verifyQueue", 64); // 等待队列长度
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread thread = new Thread(r, "login-verify-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+    private static final AtomicLong completed = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong totalRunNanos = new AtomicLong();
+
+    private LoginExecutor() {}
+
+    /**
+     * 登录校验任务
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * 提交校验任务
+     * @param task 任务（在校验线程中执行）
+     * @return 任务结果；队列已满时以 RejectedExecutionException 异常完成
+     */
+    public static <T> CompletableFuture<T> submit(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            EXECUTOR.execute(() -> {
+                long startedAt = System.nanoTime();
+                totalWaitNanos.addAndGet(startedAt - queuedAt);
+                try {
+                    future.complete(task.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    // 校验线程长期存活，任务结束后归还线程绑定的数据库连接
+                    DBHelper.closeConnection();
+                    totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                    completed.incrementAndGet();
+                    if (LogUtil.isDebugEnabled()) {
+                        LogUtil.debug("登录校验完成 - 排队: {}ms, 执行: {}ms, 队列长度: {}",
+                                (startedAt - queuedAt) / 1_000_000, (System.nanoTime() - startedAt) / 1_000_000, getQueueDepth());
+                    }
+                }
+            });
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            LogUtil.warning("登录请求过多，已拒绝 - " + stats());
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 当前排队的任务数
+     * @return 队列长度
+     */
+    public static int getQueueDepth() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * 被拒绝的任务数
+     * @return 拒绝次数
+     */
+    public static long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * 统计信息
+     * @return 统计信息字符串
+     */
+    public static String stats() {
+        long done = Math.max(1, completed.get());
+        return "已提交: " + submitted.get() + ", 已完成: " + completed.get() + ", 已拒绝: " + rejected.get()
+                + ", 排队中: " + getQueueDepth() + ", 执行中: " + EXECUTOR.getActiveCount()
+                + ", 平均排队: " + totalWaitNanos.get() / done / 1_000_000 + "ms"
+                + ", 平均执行: " + totalRunNanos.get() / done / 1_000_000 + "ms";
+    }
+}
@@ -0,0 +1,265 @@
+package User;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会员到期服务
+ * Membership Expiry
+ * 把 VIP/SVIP 用户的到期时间放入分层时间轮（5层，每层64格，最小刻度1秒，约可覆盖34年），
+ * 每秒推进一格，到期的用户批量降级为普通用户。登记和取消到期都是 O(1)，不需要定期扫描全表。
+ * 本进程内的会员升级由 User 直接登记；其他进程写入的到期时间由定期加载补充，
+ * 加载只按 expiresTime 索引读取即将到期的一小段范围。
+ * 降级语句再次校验状态和到期时间，续费后残留在时间轮中的旧条目不会误降级。
+ */
+public class MembershipExpiry {
+    private static final int RELOAD_INTERVAL = Integer.getInteger("membership.reloadMinutes", 30); // 加载即将到期用户的间隔（分钟）
+    private static final int BATCH_SIZE = Integer.getInteger("membership.batchSize", 500);       // 每条降级语句处理的用户数
+    private static final long RETRY_DELAY = 60; // 降级失败后重试的延迟（秒）
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;     // 每层格数
+    private static final int LEVELS = 5;
+    private static final long MAX_SPAN = 1L << (LEVEL_BITS * LEVELS); // 时间轮覆盖的秒数
+
+    private static final String UPCOMING_SQL =
+            "SELECT id, expiresTime FROM user WHERE expiresTime <= ? AND status IN ('VIP', 'SVIP')";
+
+    private static MembershipExpiry instance;
+    private final ScheduledExecutorService scheduler;
+    private boolean isRunning;
+
+    // 以下字段由对象锁保护
+    private final Slot[][] wheel = new Slot[LEVELS][SLOTS];
+    private final Map<Integer, Long> scheduled = new HashMap<>(); // 用户ID -> 当前登记的到期时间（秒），用于去重和取消
+    private long currentTick = System.currentTimeMillis() / 1000;
+
+    private MembershipExpiry() {
+        for (Slot[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot();
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "membership-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static MembershipExpiry getInstance() {
+        if (instance == null) {
+            synchronized (MembershipExpiry.class) {
+                if (instance == null) {
+                    instance = new MembershipExpiry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (!isRunning) {
+            scheduler.scheduleWithFixedDelay(this::loadSafely, 0, RELOAD_INTERVAL, TimeUnit.MINUTES);
+            scheduler.scheduleAtFixedRate(this::tickSafely, 1, 1, TimeUnit.SECONDS);
+            isRunning = true;
+            LogUtil.info("会员到期服务已启动，将每" + RELOAD_INTERVAL + "分钟加载一次即将到期的会员");
+        }
+    }
+
+    public synchronized void stop() {
+        if (isRunning) {
+            scheduler.shutdown();
+            isRunning = false;
+            LogUtil.info("会员到期服务已停止");
+        }
+    }
+
+    /**
+     * 登记会员到期时间（覆盖该用户之前的登记）
+     * @param userId 用户ID
+     * @param expiresTime 到期时间，为 null 表示取消
+     */
+    public synchronized void schedule(int userId, Timestamp expiresTime) {
+        if (expiresTime == null) {
+            scheduled.remove(userId);
+            return;
+        }
+        long tick = expiresTime.getTime() / 1000;
+        Long previous = scheduled.put(userId, tick);
+        if (previous == null || previous != tick) {
+            add(new Entry(userId, tick));
+        }
+    }
+
+    /**
+     * 当前登记的用户数
+     * @return 用户数
+     */
+    public synchronized int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    // 放入时间轮：按剩余时间选择层，按到期时刻选择格，O(1)
+    private void add(Entry entry) {
+        long delay = entry.tick - currentTick;
+        if (delay <= 0) {
+            wheel[0][(int) (currentTick & (SLOTS - 1))].entries.add(entry);
+            return;
+        }
+        long placed = delay >= MAX_SPAN ? currentTick + MAX_SPAN - 1 : entry.tick; // 超出范围的先放在最高层，降层时重新计算
+        int level = (63 - Long.numberOfLeadingZeros(placed - currentTick)) / LEVEL_BITS;
+        wheel[level][(int) ((placed >>> (level * LEVEL_BITS)) & (SLOTS - 1))].entries.add(entry);
+    }
+
+    // 推进到当前时间，返回到期的用户
+    private synchronized List<Integer> advance(long now) {
+        List<Integer> due = new ArrayList<>();
+        collect(wheel[0][(int) (currentTick & (SLOTS - 1))].entries, due); // 登记时已到期的条目
+        while (currentTick < now) {
+            currentTick++;
+            cascade(1);
+            collect(wheel[0][(int) (currentTick & (SLOTS - 1))].entries, due);
+        }
+        return due;
+    }
+
+    // 低一层转完一圈时，把上一层当前格的条目重新分配到下面各层
+    private void cascade(int level) {
+        if (level >= LEVELS || ((currentTick >>> ((level - 1) * LEVEL_BITS)) & (SLOTS - 1)) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        ArrayDeque<Entry> slot = wheel[level][(int) ((currentTick >>> (level * LEVEL_BITS)) & (SLOTS - 1))].entries;
+        List<Entry> moved = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry entry : moved) {
+            add(entry);
+        }
+    }
+
+    private void collect(ArrayDeque<Entry> slot, List<Integer> due) {
+        for (Entry entry; (entry = slot.poll()) != null; ) {
+            if (entry.tick > currentTick) {
+                add(entry); // 超出时间轮范围的条目，重新放入
+            } else if (scheduled.remove(entry.userId, entry.tick)) {
+                due.add(entry.userId); // 仍是该用户当前的登记（未续费或取消）
+            }
+        }
+    }
+
+    private void tickSafely() {
+        List<Integer> due = advance(System.currentTimeMillis() / 1000);
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+                downgrade(due.subList(from, Math.min(from + BATCH_SIZE, due.size())));
+            }
+        } catch (SQLException e) {
+            LogUtil.error("会员降级失败，稍后重试", e);
+            Timestamp retry = new Timestamp(System.currentTimeMillis() + RETRY_DELAY * 1000);
+            for (int userId : due) {
+                schedule(userId, retry);
+            }
+        } finally {
+            DBHelper.closeConnection();
+        }
+    }
+
+    // 一个事务内锁定并降级一批用户，只处理仍为会员且确已到期的用户
+    private void downgrade(List<Integer> userIds) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        Object[] params = new Object[userIds.size() + 1];
+        params[0] = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < userIds.size(); i++) {
+            params[i + 1] = userIds.get(i);
+        }
+
+        Connection conn = DBHelper.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> expired = new ArrayList<>(userIds.size());
+            ResultSet rs = DBHelper.executeQuery("SELECT id FROM user WHERE status IN ('VIP', 'SVIP') " +
+                    "AND expiresTime <= ? AND id IN (" + placeholders + ") FOR UPDATE", params);
+            try {
+                while (rs.next()) {
+                    expired.add(rs.getInt(1));
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+            if (!expired.isEmpty()) {
+                DBHelper.executeUpdate("UPDATE user SET status = 'Common', is_vip = FALSE, is_svip = FALSE WHERE id IN (" +
+                        String.join(", ", Collections.nCopies(expired.size(), "?")) + ")", expired.toArray());
+            }
+            conn.commit();
+            for (int userId : expired) {
+                UserDirectory.getInstance().updateStatus(userId, "Common");
+                AuthCache.invalidate(userId);
+            }
+            if (LogUtil.isInfoEnabled()) {
+                LogUtil.info("会员到期降级完成 - 到期: {}, 已降级: {}", userIds.size(), expired.size());
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // 按索引加载下一个加载周期内（含已过期）到期的会员
+    private void loadSafely() {
+        long horizon = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(RELOAD_INTERVAL * 2L);
+        try {
+            ResultSet rs = DBHelper.executeQuery(UPCOMING_SQL, new Timestamp(horizon));
+            int count = 0;
+            try {
+                while (rs.next()) {
+                    schedule(rs.getInt("id"), rs.getTimestamp("expiresTime"));
+                    count++;
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("已加载即将到期的会员 - 数量: {}", count);
+            }
+        } catch (SQLException e) {
+            LogUtil.error("加载即将到期的会员失败", e);
+        } finally {
+            DBHelper.closeConnection();
+        }
+    }
+
+    // 时间轮的一格（用持有类代替泛型数组）
+    private static final class Slot {
+        final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    }
+
+    private static final class Entry {
+        final int userId;
+        final long tick; // 到期时间（秒）
+
+        Entry(int userId, long tick) {
+            this.userId = userId;
+            this.tick = tick;
+        }
+    }
+}
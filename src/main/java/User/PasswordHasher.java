@@ -0,0 +1,97 @@
+package User;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 密码哈希
+ * Password Hasher
+ * 使用加盐的 PBKDF2-HmacSHA256 保存密码，格式为 "pbkdf2$迭代次数$盐$哈希"（盐和哈希为 Base64）。
+ * 迭代次数由 password.iterations 配置，调高后旧哈希在用户下次登录时自动重新计算（见 needsRehash）。
+ * 兼容旧版本的明文密码：校验时按常量时间比较，登录成功后改写为哈希。
+ * 哈希计算耗费 CPU，登录时应在 LoginExecutor 中调用，不能放在事件分发线程上。
+ */
+public final class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int ITERATIONS = Integer.getInteger("password.iterations", 120_000); // 迭代次数（计算成本）
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // 用户不存在时也计算一次哈希，避免通过响应时间判断用户名是否存在
+    private static final String DUMMY_HASH = hash("dummy-password");
+
+    private PasswordHasher() {}
+
+    /**
+     * 计算密码哈希
+     * @param password 明文密码
+     * @return 编码后的哈希
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, ITERATIONS);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * 校验密码（常量时间比较）
+     * @param password 明文密码
+     * @param stored 数据库中保存的哈希或旧版明文密码
+     * @return 是否匹配
+     */
+    public static boolean verify(String password, String stored) {
+        if (stored == null) {
+            verify(password, DUMMY_HASH);
+            return false;
+        }
+        if (!isEncoded(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[3]);
+        byte[] actual = pbkdf2(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * 是否需要重新计算哈希（旧版明文或迭代次数低于当前配置）
+     * @param stored 数据库中保存的值
+     * @return 是否需要重新计算
+     */
+    public static boolean needsRehash(String stored) {
+        return !isEncoded(stored) || Integer.parseInt(stored.split("\\$")[1]) < ITERATIONS;
+    }
+
+    /**
+     * 是否已是本类生成的哈希
+     * @param value 密码列的值
+     * @return 是否为哈希
+     */
+    public static boolean isEncoded(String value) {
+        if (value == null || !value.startsWith(PREFIX)) {
+            return false;
+        }
+        String[] parts = value.split("\\$");
+        return parts.length == 4 && !parts[1].isEmpty() && parts[1].chars().allMatch(Character::isDigit);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " 不可用", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
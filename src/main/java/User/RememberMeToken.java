@@ -0,0 +1,120 @@
+package User;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * 记住登录令牌
+ * Remember-Me Token
+ * "记住密码/自动登录"不再在本地文件中保存明文密码，而是保存随机令牌 "selector:validator"。
+ * 数据库 login_token 表只保存 validator 的 SHA-256 摘要，按 selector 查找后常量时间比较。
+ * 令牌在 auth.rememberDays 天后过期；用户修改密码或退出登录时撤销。
+ */
+public final class RememberMeToken {
+    private static final int REMEMBER_DAYS = Integer.getInteger("auth.rememberDays", 30); // 令牌有效天数
+    private static final int SELECTOR_BYTES = 12;
+    private static final int VALIDATOR_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final HexFormat HEX = HexFormat.of();
+
+    private RememberMeToken() {}
+
+    /**
+     * 为用户签发令牌
+     * @param userId 用户ID
+     * @return 令牌（保存到本地文件）
+     * @throws SQLException SQL异常
+     */
+    public static String issue(int userId) throws SQLException {
+        String selector = randomHex(SELECTOR_BYTES);
+        String validator = randomHex(VALIDATOR_BYTES);
+        DBHelper.executeUpdate("DELETE FROM login_token WHERE user_id = ? AND expires_time < NOW()", userId);
+        DBHelper.executeUpdate("INSERT INTO login_token (user_id, selector, validator_hash, expires_time) VALUES (?, ?, ?, ?)",
+                userId, selector, sha256(validator), Timestamp.valueOf(LocalDateTime.now().plusDays(REMEMBER_DAYS)));
+        return selector + ":" + validator;
+    }
+
+    /**
+     * 使用令牌登录
+     * @param token 令牌
+     * @return 令牌有效时返回用户，否则返回 null
+     * @throws SQLException SQL异常
+     */
+    public static User authenticate(String token) throws SQLException {
+        if (!isToken(token)) {
+            return null;
+        }
+        String[] parts = token.split(":");
+        String sql = "SELECT t.validator_hash, t.expires_time, u.* FROM login_token t " +
+                     "JOIN user u ON u.id = t.user_id WHERE t.selector = ?";
+        ResultSet rs = DBHelper.executeQuery(sql, parts[0]);
+        try {
+            if (!rs.next()) {
+                return null;
+            }
+            boolean valid = MessageDigest.isEqual(
+                    rs.getString("validator_hash").getBytes(StandardCharsets.US_ASCII),
+                    sha256(parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!valid || rs.getTimestamp("expires_time").before(new Timestamp(System.currentTimeMillis()))) {
+                LogUtil.warning("记住登录令牌无效或已过期");
+                return null;
+            }
+            return User.fromResultSet(rs);
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+    }
+
+    /**
+     * 撤销令牌
+     * @param token 令牌
+     * @throws SQLException SQL异常
+     */
+    public static void revoke(String token) throws SQLException {
+        if (isToken(token)) {
+            DBHelper.executeUpdate("DELETE FROM login_token WHERE selector = ?", token.split(":")[0]);
+        }
+    }
+
+    /**
+     * 撤销用户的全部令牌（修改密码后调用）
+     * @param userId 用户ID
+     * @throws SQLException SQL异常
+     */
+    public static void revokeAll(int userId) throws SQLException {
+        DBHelper.executeUpdate("DELETE FROM login_token WHERE user_id = ?", userId);
+    }
+
+    /**
+     * 是否为令牌格式（区分旧版本文件中保存的明文密码）
+     * @param value 本地文件中保存的值
+     * @return 是否为令牌
+     */
+    public static boolean isToken(String value) {
+        return value != null && value.matches("[0-9a-f]{" + SELECTOR_BYTES * 2 + "}:[0-9a-f]{" + VALIDATOR_BYTES * 2 + "}");
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] value = new byte[bytes];
+        RANDOM.nextBytes(value);
+        return HEX.formatHex(value);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package User;
 
+import Ledger.BalanceLedger;
 import util.DBHelper;
 import util.LogUtil;
+import util.Money;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * 用户类
@@ -22,7 +26,7 @@ public class User {
     private String status;         // 用户状态（普通用户/VIP/SVIP/管理员）
     private String password;       // 密码
     private String confirmPassword; // 确认密码
-    private double balance;        // 账户余额
+    private long balance;          // 账户余额（分）
     private Timestamp expiresTime; // 会员过期时间
     private String avatar;         // 用户头像路径
 
@@ -38,10 +42,10 @@ public class User {
      * @param phone 手机号
      * @param status 用户状态
      * @param password 密码
-     * @param balance 账户余额
+     * @param balance 账户余额（分）
      * @param expiresTime 会员过期时间
      */
-    public User(int id, String username, String phone, String status, String password, double balance, Timestamp expiresTime) {
+    public User(int id, String username, String phone, String status, String password, long balance, Timestamp expiresTime) {
         this.id = id;
         this.username = username;
         this.phone = phone;
@@ -59,11 +63,11 @@ public class User {
      * @param phone 手机号
      * @param status 用户状态
      * @param password 密码
-     * @param balance 账户余额
+     * @param balance 账户余额（分）
      * @param expiresTime 会员过期时间
      * @param avatar 头像路径
      */
-    public User(int id, String username, String phone, String status, String password, double balance, Timestamp expiresTime, String avatar) {
+    public User(int id, String username, String phone, String status, String password, long balance, Timestamp expiresTime, String avatar) {
         this(id, username, phone, status, password, balance, expiresTime);
         if (avatar != null && !avatar.isEmpty()) {
             this.avatar = avatar;
@@ -83,8 +87,8 @@ public class User {
     public void setPassword(String password) { this.password = password; }
     public String getConfirmPassword() { return confirmPassword; }
     public void setConfirmPassword(String confirmPassword) { this.confirmPassword = confirmPassword; }
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    public long getBalance() { return balance; }
+    public void setBalance(long balance) { this.balance = balance; }
     public Timestamp getExpiresTime() { return expiresTime; }
     public void setExpiresTime(Timestamp expiresTime) { this.expiresTime = expiresTime; }
     public String getAvatar() { return avatar; }
@@ -104,49 +108,80 @@ public class User {
     }
 
     /**
-     * 检查用户是否为管理员
+     * 用户登录认证（一次查询同时取得用户信息和角色）
+     * 密码以 PasswordHasher 哈希校验，旧版明文密码或低成本哈希在登录成功后自动重新计算；
+     * 登录成功的结果缓存在 AuthCache 中，有效期内重复登录不查询数据库也不重新计算哈希。
+     * 哈希计算耗费 CPU，界面中应通过 authenticateAsync 调用。
      * @param username 用户名
      * @param password 密码
-     * @return 是否为管理员
+     * @return 登录成功返回用户（角色见 getStatus），用户名或密码错误返回 null
+     * @throws SQLException SQL异常
      */
-    public boolean checkUser_IsAdmin(String username, String password) {
+    public static User authenticate(String username, String password) throws SQLException {
+        User cached = AuthCache.get(username, password);
+        if (cached != null) {
+            LogUtil.info("用户认证尝试: " + username + " - 成功（缓存）");
+            return cached;
+        }
+        String query = "SELECT * FROM User WHERE username = ?";
+        ResultSet rs = DBHelper.executeQuery(query, username);
+        User user;
         try {
-            String query = "SELECT status FROM User WHERE username = ? AND password = ?";
-            ResultSet rs = DBHelper.executeQuery(query, username, password);
-
-            boolean isAdmin = rs.next() && rs.getString("status").equals("Admin");
-            LogUtil.info("检查用户是否为管理员: " + username + " - 结果: " + isAdmin);
-
+            user = rs.next() ? fromResultSet(rs) : null;
+        } finally {
             DBHelper.closeResources(rs, null);
-            return isAdmin;
-        } catch (SQLException e) {
-            LogUtil.error("检查用户管理员权限时出错: " + username, e);
-            return false;
         }
+        // 用户不存在时同样计算一次哈希，响应时间不暴露用户名是否存在
+        boolean valid = PasswordHasher.verify(password, user != null ? user.password : null);
+        LogUtil.info("用户认证尝试: " + username + " - 成功: " + valid);
+        if (!valid) {
+            return null;
+        }
+        if (PasswordHasher.needsRehash(user.password)) {
+            rehashPassword(user, password);
+        }
+        AuthCache.put(user, password);
+        return user;
     }
 
     /**
-     * 检查用户是否存在于数据库
+     * 在登录校验线程池中认证，不阻塞调用线程
      * @param username 用户名
      * @param password 密码
-     * @return 是否存在
+     * @return 认证结果（见 authenticate）；登录请求过多时以 RejectedExecutionException 异常完成
      */
-    public boolean checkUser_IsDataBase(String username, String password) {
-        try {
-            String query = "SELECT * FROM User WHERE username = ? AND password = ?";
-            ResultSet rs = DBHelper.executeQuery(query, username, password);
-            
-            boolean exists = rs.next();
-            LogUtil.info("用户认证尝试: " + username + " - 成功: " + exists);
-            
-            DBHelper.closeResources(rs, null);
-            return exists;
-        } catch (SQLException e) {
-            LogUtil.error("用户认证过程中出错: " + username, e);
-            return false;
+    public static CompletableFuture<User> authenticateAsync(String username, String password) {
+        return LoginExecutor.submit(() -> authenticate(username, password));
+    }
+
+    /**
+     * 使用记住登录令牌在登录校验线程池中认证
+     * @param token 令牌
+     * @return 认证结果，令牌无效时为 null
+     */
+    public static CompletableFuture<User> authenticateTokenAsync(String token) {
+        return LoginExecutor.submit(() -> RememberMeToken.authenticate(token));
+    }
+
+    // 以当前成本重新计算哈希；只在密码未被并发修改时写回
+    private static void rehashPassword(User user, String password) throws SQLException {
+        String rehashed = PasswordHasher.hash(password);
+        int updated = DBHelper.executeUpdate("UPDATE user SET password = ? WHERE id = ? AND password = ?",
+                rehashed, user.id, user.password);
+        if (updated > 0) {
+            user.password = rehashed;
+            LogUtil.info("已更新用户密码哈希 - 用户ID: " + user.id);
         }
     }
 
+    /**
+     * 检查用户是否为管理员
+     * @return 是否为管理员
+     */
+    public boolean isAdmin() {
+        return "Admin".equals(status);
+    }
+
     /**
      * 用户注册
      * @param username 用户名
@@ -190,9 +225,10 @@ public class User {
 
             // 插入新用户
             String insertQuery = "INSERT INTO User (username, phone, password, balance) VALUES (?, ?, ?, 0.0)";
-            int result = DBHelper.executeUpdate(insertQuery, username, phone, password);
+            int result = DBHelper.executeUpdate(insertQuery, username, phone, PasswordHasher.hash(password));
             
             if (result > 0) {
+                UserDirectory.getInstance().invalidate();
                 LogUtil.info("用户注册成功: " + username);
                 return true;
             } else {
@@ -211,22 +247,67 @@ public class User {
      * @throws SQLException SQL异常
      */
     public static List<User> getAllUsers() throws SQLException {
-        String sql = "SELECT * FROM user";
-        ResultSet rs = DBHelper.executeQuery(sql);
-        return resultSetToUsers(rs);
+        List<User> users = new ArrayList<>();
+        forEachUser(users::add);
+        return users;
+    }
+
+    /**
+     * 逐个读取所有用户（流式读取，内存占用与表大小无关）
+     * @param consumer 每个用户的处理逻辑
+     * @return 读取的数量
+     * @throws SQLException SQL异常
+     */
+    public static long forEachUser(Consumer<? super User> consumer) throws SQLException {
+        return DBHelper.stream("SELECT * FROM user", User::fromResultSet, consumer);
     }
 
     /**
-     * 搜索用户
+     * 统计用户数量
+     * @return 用户数量
+     * @throws SQLException SQL异常
+     */
+    public static int countUsers() throws SQLException {
+        ResultSet rs = DBHelper.executeQuery("SELECT COUNT(*) FROM user");
+        try {
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+    }
+
+    /**
+     * 按ID顺序分页读取用户
+     * 已知上一页最后的ID时按主键续读（不随页数变慢），否则按偏移量定位
+     * @param afterId 上一页最后一个用户的ID，未知时为 null
+     * @param offset 起始位置（afterId 为 null 时使用）
+     * @param limit 读取数量
+     * @return 用户列表
+     * @throws SQLException SQL异常
+     */
+    public static List<User> getUserPage(Integer afterId, int offset, int limit) throws SQLException {
+        ResultSet rs = afterId != null
+                ? DBHelper.executeQuery("SELECT * FROM user WHERE id > ? ORDER BY id LIMIT ?", afterId, limit)
+                : DBHelper.executeQuery("SELECT * FROM user ORDER BY id LIMIT ? OFFSET ?", limit, offset);
+        List<User> users = new ArrayList<>(limit);
+        try {
+            while (rs.next()) {
+                users.add(fromResultSet(rs));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        return users;
+    }
+
+    /**
+     * 搜索用户（用户名或手机号以关键词开头，见 UserDirectory）
      * @param keyword 搜索关键词
      * @return 用户列表
      * @throws SQLException SQL异常
      */
     public static List<User> searchUsers(String keyword) throws SQLException {
-        String sql = "SELECT * FROM user WHERE username LIKE ? OR phone LIKE ?";
-        String searchPattern = "%" + keyword + "%";
-        ResultSet rs = DBHelper.executeQuery(sql, searchPattern, searchPattern);
-        return resultSetToUsers(rs);
+        return UserDirectory.getInstance().search(keyword, null);
     }
 
     /**
@@ -236,9 +317,7 @@ public class User {
      * @throws SQLException SQL异常
      */
     public static List<User> filterUsersByStatus(String status) throws SQLException {
-        String sql = "SELECT * FROM user WHERE status = ?";
-        ResultSet rs = DBHelper.executeQuery(sql, status);
-        return resultSetToUsers(rs);
+        return UserDirectory.getInstance().search(null, status);
     }
 
     /**
@@ -250,21 +329,12 @@ public class User {
      */
     public static User findByUsernameAndPhone(String username, String phone) throws SQLException {
         String sql = "SELECT * FROM user WHERE username = ? AND phone = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setString(1, username);
-            stmt.setString(2, phone);
-            ResultSet rs = stmt.executeQuery();
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setString(1, username);
+        stmt.setString(2, phone);
+        try (ResultSet rs = stmt.executeQuery()) {
             if (rs.next()) {
-                return new User(
-                    rs.getInt("id"),
-                    rs.getString("username"),
-                    rs.getString("phone"),
-                    rs.getString("status"),
-                    rs.getString("password"),
-                    rs.getDouble("balance"),
-                    rs.getTimestamp("expiresTime"),
-                    rs.getString("avatar")  // 添加头像路径
-                );
+                return fromResultSet(rs);
             }
             return null;
         }
@@ -277,10 +347,14 @@ public class User {
      */
     public boolean delete() throws SQLException {
         String sql = "DELETE FROM user WHERE id = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setInt(1, this.id);
-            return stmt.executeUpdate() > 0;
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setInt(1, this.id);
+        boolean deleted = stmt.executeUpdate() > 0;
+        if (deleted) {
+            UserDirectory.getInstance().remove(this.id);
+            AuthCache.invalidate(this.id);
         }
+        return deleted;
     }
 
     /**
@@ -289,47 +363,61 @@ public class User {
      * @throws SQLException SQL异常
      */
     public boolean save() throws SQLException {
+        // 新设置的明文密码先计算哈希；已是哈希的（未修改密码）原样保存
+        boolean passwordChanged = !PasswordHasher.isEncoded(this.password);
+        if (passwordChanged) {
+            this.password = PasswordHasher.hash(this.password);
+        }
         if (this.id == 0) {
             // Insert new user
             String sql = "INSERT INTO user (username, phone, status, password, balance, expiresTime, avatar) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
-                stmt.setString(1, this.username);
-                stmt.setString(2, this.phone);
-                stmt.setString(3, this.status);
-                stmt.setString(4, this.password);
-                stmt.setDouble(5, this.balance);
-                stmt.setTimestamp(6, this.expiresTime);
-                stmt.setString(7, this.avatar);
-                
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows == 0) {
-                    return false;
-                }
+            PreparedStatement stmt = DBHelper.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+            stmt.setString(1, this.username);
+            stmt.setString(2, this.phone);
+            stmt.setString(3, this.status);
+            stmt.setString(4, this.password);
+            Money.set(stmt, 5, this.balance);
+            stmt.setTimestamp(6, this.expiresTime);
+            stmt.setString(7, this.avatar);
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                return false;
+            }
 
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        this.id = generatedKeys.getInt(1);
-                        return true;
-                    } else {
-                        return false;
-                    }
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    this.id = generatedKeys.getInt(1);
+                    UserDirectory.getInstance().put(this);
+                    scheduleExpiry();
+                    return true;
+                } else {
+                    return false;
                 }
             }
         } else {
             // Update existing user
-            String sql = "UPDATE user SET username = ?, phone = ?, status = ?, password = ?, balance = ?, expiresTime = ?, avatar = ? WHERE id = ?";
-            try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-                stmt.setString(1, this.username);
-                stmt.setString(2, this.phone);
-                stmt.setString(3, this.status);
-                stmt.setString(4, this.password);
-                stmt.setDouble(5, this.balance);
-                stmt.setTimestamp(6, this.expiresTime);
-                stmt.setString(7, this.avatar);
-                stmt.setInt(8, this.id);
-                
-                return stmt.executeUpdate() > 0;
+            // 余额由账本维护，这里不回写，避免覆盖并发产生的余额变动
+            String sql = "UPDATE user SET username = ?, phone = ?, status = ?, password = ?, expiresTime = ?, avatar = ? WHERE id = ?";
+            PreparedStatement stmt = DBHelper.prepareStatement(sql);
+            stmt.setString(1, this.username);
+            stmt.setString(2, this.phone);
+            stmt.setString(3, this.status);
+            stmt.setString(4, this.password);
+            stmt.setTimestamp(5, this.expiresTime);
+            stmt.setString(6, this.avatar);
+            stmt.setInt(7, this.id);
+
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                if (passwordChanged) {
+                    RememberMeToken.revokeAll(this.id); // 修改密码后其他设备需重新登录
+                }
+                UserDirectory.getInstance().put(this);
+                AuthCache.invalidate(this.id);
+                scheduleExpiry();
             }
+            return updated;
         }
     }
 
@@ -340,11 +428,16 @@ public class User {
      */
     public boolean updateStatus() throws SQLException {
         String sql = "UPDATE user SET status = ? WHERE id = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setString(1, this.status);
-            stmt.setInt(2, this.id);
-            return stmt.executeUpdate() > 0;
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setString(1, this.status);
+        stmt.setInt(2, this.id);
+        boolean updated = stmt.executeUpdate() > 0;
+        if (updated) {
+            UserDirectory.getInstance().updateStatus(this.id, this.status);
+            AuthCache.invalidate(this.id);
+            scheduleExpiry();
         }
+        return updated;
     }
 
     /**
@@ -354,11 +447,22 @@ public class User {
      */
     public boolean updateExpiresTime() throws SQLException {
         String sql = "UPDATE user SET expiresTime = ? WHERE id = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setTimestamp(1, this.expiresTime);
-            stmt.setInt(2, this.id);
-            return stmt.executeUpdate() > 0;
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setTimestamp(1, this.expiresTime);
+        stmt.setInt(2, this.id);
+        boolean updated = stmt.executeUpdate() > 0;
+        if (updated) {
+            UserDirectory.getInstance().put(this);
+            AuthCache.invalidate(this.id);
+            scheduleExpiry();
         }
+        return updated;
+    }
+
+    // 把会员到期时间登记到到期服务；非会员或没有到期时间时取消登记
+    private void scheduleExpiry() {
+        boolean member = "VIP".equals(this.status) || "SVIP".equals(this.status);
+        MembershipExpiry.getInstance().schedule(this.id, member ? this.expiresTime : null);
     }
 
     /**
@@ -368,34 +472,33 @@ public class User {
      */
     public boolean updateAvatar() throws SQLException {
         String sql = "UPDATE user SET avatar = ? WHERE id = ?";
-        try (PreparedStatement stmt = DBHelper.getConnection().prepareStatement(sql)) {
-            stmt.setString(1, this.avatar);
-            stmt.setInt(2, this.id);
-            return stmt.executeUpdate() > 0;
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setString(1, this.avatar);
+        stmt.setInt(2, this.id);
+        boolean updated = stmt.executeUpdate() > 0;
+        if (updated) {
+            AuthCache.invalidate(this.id);
         }
+        return updated;
     }
 
     /**
-     * ResultSet转换为User列表
-     * @param rs ResultSet对象
-     * @return 用户列表
+     * 将结果集当前行映射为用户对象
+     * @param rs 结果集（已定位到当前行）
+     * @return 用户对象
      * @throws SQLException SQL异常
      */
-    private static List<User> resultSetToUsers(ResultSet rs) throws SQLException {
-        List<User> users = new ArrayList<>();
-        while (rs.next()) {
-            users.add(new User(
-                rs.getInt("id"),
-                rs.getString("username"),
-                rs.getString("phone"),
-                rs.getString("status"),
-                rs.getString("password"),
-                rs.getDouble("balance"),
-                rs.getTimestamp("expiresTime"),
-                rs.getString("avatar")  // 添加头像路径
-            ));
-        }
-        return users;
+    public static User fromResultSet(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getInt("id"),
+            rs.getString("username"),
+            rs.getString("phone"),
+            rs.getString("status"),
+            rs.getString("password"),
+            Money.get(rs, "balance"),
+            rs.getTimestamp("expiresTime"),
+            rs.getString("avatar")  // 添加头像路径
+        );
     }
 
     /**
@@ -427,12 +530,7 @@ public class User {
      * @throws SQLException SQL异常
      */
     public void refreshBalance() throws SQLException {
-        String sql = "SELECT balance FROM user WHERE id = ?";
-        var rs = DBHelper.executeQuery(sql, this.id);
-        if (rs.next()) {
-            this.balance = rs.getDouble("balance");
-        }
-        DBHelper.closeResources(rs, null);
+        this.balance = BalanceLedger.getBalance(this.id);
     }
 
     /**
@@ -450,7 +548,7 @@ public class User {
                 rs.getString("phone"),
                 rs.getString("status"),
                 rs.getString("password"),
-                rs.getDouble("balance"),
+                Money.get(rs, "balance"),
                 rs.getTimestamp("expiresTime")
             );
             DBHelper.closeResources(rs, null);
@@ -460,66 +558,51 @@ public class User {
         return null;
     }
 
-    /**
-     * 更新用户余额
-     * @param newBalance 新余额
-     * @return 是否更新成功
-     * @throws SQLException SQL异常
-     */
-    public boolean updateBalance(double newBalance) throws SQLException {
-        this.balance = newBalance;
-        String sql = "UPDATE User SET balance = ? WHERE id = ?";
-        return DBHelper.executeUpdate(sql, newBalance, this.id) > 0;
-    }
-
     /**
      * 充值会员
      * @param type 会员类型
      * @param months 会员月数
-     * @param cost 充值金额
+     * @param cost 充值金额（分）
      * @return 是否充值成功
      * @throws SQLException SQL异常
      */
-    public boolean upgradeMembership(String type, int months, double cost) throws SQLException {
+    public boolean upgradeMembership(String type, int months, long cost) throws SQLException {
         // 开启事务
         Connection conn = DBHelper.getConnection();
         conn.setAutoCommit(false);
         
         try {
+            // 锁定该用户行，串行化同一用户的扣款检查
+            ResultSet lockRs = DBHelper.executeQuery("SELECT id FROM user WHERE id = ? FOR UPDATE", this.id);
+            DBHelper.closeResources(lockRs, null);
+
             // 检查余额
-            if (this.balance < cost) {
+            long currentBalance = BalanceLedger.getBalance(this.id);
+            if (currentBalance < cost) {
+                this.balance = currentBalance;
+                conn.rollback();
                 return false;
             }
 
-            // 获取管理员账户
-            User admin = getAdminUser();
-            if (admin == null) {
-                throw new SQLException("无法找到管理员账户");
-            }
-
-            // 扣除用户余额
-            this.balance -= cost;
-            if (!updateBalance(this.balance)) {
-                throw new SQLException("更新用户余额失败");
-            }
-
-            // 增加管理员余额
-            admin.setBalance(admin.getBalance() + cost);
-            if (!admin.updateBalance(admin.getBalance())) {
-                throw new SQLException("更新管理员余额失败");
-            }
-
-            // 更新用户状态和到期时间
-            this.status = type;
-            this.expiresTime = Timestamp.valueOf(LocalDateTime.now().plusMonths(months));
+            // 扣除会员费（记入收入账户，由 RevenueRollup 汇总给管理员）
+            BalanceLedger.postMembership(this.id, cost);
 
-            if (save()) {
-                conn.commit();
-                return true;
-            } else {
+            // 更新用户状态和到期时间（事务内只写表，缓存和到期登记等提交后再更新）
+            Timestamp newExpiresTime = Timestamp.valueOf(LocalDateTime.now().plusMonths(months));
+            if (DBHelper.executeUpdate("UPDATE user SET status = ?, expiresTime = ? WHERE id = ?",
+                    type, newExpiresTime, this.id) == 0) {
                 conn.rollback();
                 return false;
             }
+            conn.commit();
+
+            this.balance = currentBalance - cost;
+            this.status = type;
+            this.expiresTime = newExpiresTime;
+            UserDirectory.getInstance().put(this);
+            AuthCache.invalidate(this.id);
+            scheduleExpiry();
+            return true;
         } catch (SQLException ex) {
             conn.rollback();
             throw ex;
@@ -539,6 +622,13 @@ public class User {
         String sql = "UPDATE User SET status = ?, expiresTime = ? WHERE id = ?";
         try {
             boolean updated = DBHelper.executeUpdate(sql, newStatus, newExpiryTime, this.id) > 0;
+            if (updated) {
+                this.status = newStatus;
+                this.expiresTime = newExpiryTime;
+                UserDirectory.getInstance().put(this);
+                AuthCache.invalidate(this.id);
+                scheduleExpiry();
+            }
             LogUtil.info("已更新用户状态和到期时间 - 用户ID: " + this.id + " - 状态: " + newStatus + ", 到期时间: " + newExpiryTime);
             return updated;
         } catch (SQLException e) {
@@ -564,7 +654,7 @@ public class User {
                 rs.getString("phone"),
                 rs.getString("status"),
                 rs.getString("password"),
-                rs.getDouble("balance"),
+                Money.get(rs, "balance"),
                 rs.getTimestamp("expiresTime")
             );
             user.setAvatar(rs.getString("avatar"));
@@ -575,13 +665,13 @@ public class User {
 
     /**
      * 充值余额
-     * @param amount 充值金额
+     * @param amount 充值金额（分）
      * @return 是否充值成功
      * @throws SQLException SQL异常
      */
-    public boolean rechargeBalance(double amount) throws SQLException {
-        this.balance += amount;
-        String updateSql = "UPDATE User SET balance = ? WHERE id = ?";
-        return util.DBHelper.executeUpdate(updateSql, this.balance, this.id) > 0;
+    public boolean rechargeBalance(long amount) throws SQLException {
+        BalanceLedger.postRecharge(this.id, amount);
+        this.balance = BalanceLedger.getBalance(this.id);
+        return true;
     }
 }
@@ -0,0 +1,248 @@
+package User;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 用户目录
+ * User Directory
+ * 常驻内存的用户搜索索引，供管理员边输入边搜索和按状态筛选使用，代替每次 LIKE '%kw%' 全表扫描。
+ * 用户名和手机号各建一棵前缀树（字典树），会员状态按 BitSet 分组；搜索只走前缀树，耗时与关键词长度和命中数成正比。
+ * 搜索语义为前缀匹配：用户名或手机号以关键词开头（不区分大小写），不再匹配中间的子串。
+ * 目录只保存用户ID、用户名、手机号和状态；命中用户的完整信息（余额、密码等）按ID从数据库读取，不会读到过期的值。
+ * 用户的新增、修改、删除和状态变更同步更新目录，超过有效期后整体重新加载，以读到其他进程的修改。
+ */
+public class UserDirectory {
+    private static final long TTL_MILLIS = Long.getLong("user.directoryTtlSeconds", 60) * 1000; // 目录有效期
+    private static final int FETCH_BATCH = 500; // 按ID读取命中用户时每条SQL的ID数
+    private static final String FETCH_SQL = "SELECT * FROM user WHERE id IN ("
+            + String.join(", ", Collections.nCopies(FETCH_BATCH, "?")) + ") ORDER BY id";
+
+    private static UserDirectory instance;
+
+    private final List<Integer> ids = new ArrayList<>();         // 槽位 -> 用户ID
+    private final List<String> statuses = new ArrayList<>();     // 槽位 -> 用户状态
+    private final List<String> usernames = new ArrayList<>();    // 槽位 -> 小写用户名
+    private final List<String> phones = new ArrayList<>();       // 槽位 -> 手机号
+    private final Map<Integer, Integer> slots = new HashMap<>(); // 用户ID -> 槽位
+    private final Map<String, BitSet> byStatus = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private TrieNode usernameTrie = new TrieNode();
+    private TrieNode phoneTrie = new TrieNode();
+    private long loadedAt;
+
+    private UserDirectory() {}
+
+    public static UserDirectory getInstance() {
+        if (instance == null) {
+            synchronized (UserDirectory.class) {
+                if (instance == null) {
+                    instance = new UserDirectory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 搜索用户
+     * @param keyword 关键词（用户名或手机号的前缀），为空表示不限
+     * @param status 用户状态，为 null 表示不限
+     * @return 用户列表（从数据库读取），按用户ID排序
+     * @throws SQLException SQL异常
+     */
+    public List<User> search(String keyword, String status) throws SQLException {
+        int[] matched = match(keyword, status);
+        List<User> result = new ArrayList<>(matched.length);
+        // 不持有目录的锁读取数据库，固定长度的 IN 列表不足时用最后一个ID补齐，只占用一条缓存的语句
+        for (int from = 0; from < matched.length; from += FETCH_BATCH) {
+            int to = Math.min(matched.length, from + FETCH_BATCH);
+            Object[] params = new Object[FETCH_BATCH];
+            for (int i = 0; i < FETCH_BATCH; i++) {
+                params[i] = matched[Math.min(from + i, to - 1)];
+            }
+            ResultSet rs = DBHelper.executeQuery(FETCH_SQL, params);
+            try {
+                while (rs.next()) {
+                    result.add(User.fromResultSet(rs));
+                }
+            } finally {
+                DBHelper.closeResources(rs, null);
+            }
+        }
+        return result;
+    }
+
+    // 在目录中求命中的用户ID（升序）
+    private synchronized int[] match(String keyword, String status) throws SQLException {
+        ensureLoaded();
+        BitSet hits;
+        String key = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            hits = (BitSet) live.clone();
+        } else {
+            // 两棵前缀树各走一次路径，只收集关键词节点下的槽位
+            hits = new BitSet();
+            usernameTrie.collect(key, hits);
+            phoneTrie.collect(key, hits);
+        }
+        if (status != null) {
+            hits.and(byStatus.getOrDefault(status, new BitSet()));
+        }
+        int[] result = new int[hits.cardinality()];
+        int count = 0;
+        for (int slot = hits.nextSetBit(0); slot >= 0; slot = hits.nextSetBit(slot + 1)) {
+            result[count++] = ids.get(slot);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 新增或更新用户（目录尚未加载时忽略）
+     * @param user 用户
+     */
+    public synchronized void put(User user) {
+        if (loadedAt == 0 || user.getId() == 0) {
+            return;
+        }
+        remove(user.getId());
+        add(user.getId(), user.getUsername(), user.getPhone(), user.getStatus());
+    }
+
+    /**
+     * 更新用户状态
+     * @param userId 用户ID
+     * @param status 新状态
+     */
+    public synchronized void updateStatus(int userId, String status) {
+        Integer slot = slots.get(userId);
+        if (slot == null) {
+            return;
+        }
+        byStatus.getOrDefault(statuses.get(slot), new BitSet()).clear(slot);
+        statuses.set(slot, status);
+        byStatus.computeIfAbsent(status, k -> new BitSet()).set(slot);
+    }
+
+    /**
+     * 删除用户
+     * @param userId 用户ID
+     */
+    public synchronized void remove(int userId) {
+        Integer slot = slots.remove(userId);
+        if (slot == null) {
+            return;
+        }
+        usernameTrie.remove(usernames.get(slot), slot);
+        phoneTrie.remove(phones.get(slot), slot);
+        byStatus.getOrDefault(statuses.get(slot), new BitSet()).clear(slot);
+        live.clear(slot);
+    }
+
+    /**
+     * 丢弃目录，下次查询时重新加载
+     */
+    public synchronized void invalidate() {
+        loadedAt = 0;
+    }
+
+    private void ensureLoaded() throws SQLException {
+        if (loadedAt != 0 && System.currentTimeMillis() - loadedAt <= TTL_MILLIS) {
+            return;
+        }
+        ids.clear();
+        statuses.clear();
+        usernames.clear();
+        phones.clear();
+        slots.clear();
+        byStatus.clear();
+        live.clear();
+        usernameTrie = new TrieNode();
+        phoneTrie = new TrieNode();
+        ResultSet rs = DBHelper.executeQuery("SELECT id, username, phone, status FROM user ORDER BY id");
+        try {
+            while (rs.next()) {
+                add(rs.getInt("id"), rs.getString("username"), rs.getString("phone"), rs.getString("status"));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        loadedAt = System.currentTimeMillis();
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("用户目录已加载 - 用户数: {}", slots.size());
+        }
+    }
+
+    private void add(int id, String username, String phone, String status) {
+        int slot = ids.size();
+        String key = username == null ? "" : username.toLowerCase(Locale.ROOT);
+        String digits = phone == null ? "" : phone;
+        ids.add(id);
+        statuses.add(status);
+        usernames.add(key);
+        phones.add(digits);
+        slots.put(id, slot);
+        usernameTrie.insert(key, slot);
+        phoneTrie.insert(digits, slot);
+        byStatus.computeIfAbsent(status, k -> new BitSet()).set(slot);
+        live.set(slot);
+    }
+
+    // 前缀树节点，terminal 记录以此结尾的用户槽位
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final List<Integer> terminal = new ArrayList<>(1);
+
+        void insert(String key, int slot) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+            }
+            node.terminal.add(slot);
+        }
+
+        void remove(String key, int slot) {
+            TrieNode node = find(key);
+            if (node != null) {
+                node.terminal.remove(Integer.valueOf(slot));
+            }
+        }
+
+        // 收集以 prefix 开头的所有槽位
+        void collect(String prefix, BitSet out) {
+            TrieNode node = find(prefix);
+            if (node != null) {
+                node.collectAll(out);
+            }
+        }
+
+        private void collectAll(BitSet out) {
+            for (int slot : terminal) {
+                out.set(slot);
+            }
+            for (TrieNode child : children.values()) {
+                child.collectAll(out);
+            }
+        }
+
+        private TrieNode find(String key) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            return node;
+        }
+    }
+}
@@ -3,18 +3,25 @@ package gui;
 import Commodity.Commodity;
 import Commodity.Commodity.Status;
 import User.User;
+import User.UserDirectory;
+import gui.util.BackgroundLoader;
+import gui.util.LazyTableModel;
+import gui.util.RememberedLogin;
+import util.Money;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 管理员界面类
@@ -31,6 +38,7 @@ public class AdminLayout extends JFrame {
     // 功能按钮定义
     private JButton addButton = createStyledButton("添加", new Color(46, 204, 113));      // 添加按钮（绿色）
     private JButton deleteButton = createStyledButton("删除", new Color(231, 76, 60));    // 删除按钮（红色）
+    private JButton exportButton = createStyledButton("导出", new Color(243, 156, 18));   // 导出按钮（橙色）
     private JButton commodity = createStyledButton("商品管理", new Color(52, 152, 219));   // 商品管理按钮（蓝色）
     private JButton user = createStyledButton("用户管理", new Color(52, 152, 219));        // 用户管理按钮（蓝色）
     private JButton logoutButton = createStyledButton("退出登录", new Color(231, 76, 60)); // 退出按钮（红色）
@@ -51,7 +59,7 @@ public class AdminLayout extends JFrame {
     // 数据展示组件
     private JPanel otherPanel = new JPanel();       // 其他面板（包含表格等）
     private JTable dataTable;                       // 数据表格
-    private DefaultTableModel tableModel;           // 表格数据模型
+    private LazyTableModel tableModel;              // 表格数据模型（按需分块加载）
     private boolean showingCommodities = true;      // 当前显示状态（商品/用户）
 
     /**
@@ -93,6 +101,7 @@ public class AdminLayout extends JFrame {
         buttonPanelContainer.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 20));
         buttonPanel.add(addButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(exportButton);
         buttonPanel.add(logoutButton);
         buttonPanelContainer.add(buttonPanel, BorderLayout.CENTER);
 
@@ -126,8 +135,17 @@ public class AdminLayout extends JFrame {
         user.addActionListener(e -> switchToUserView());             // 切换到用户视图
         filterButton.addActionListener(e -> applyFilters());         // 应用筛选
         searchButton.addActionListener(e -> searchUsers());          // 搜索用户
+        searchField.getDocument().addDocumentListener(new DocumentListener() { // 边输入边搜索
+            @Override
+            public void insertUpdate(DocumentEvent e) { searchUsers(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { searchUsers(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { searchUsers(); }
+        });
         addButton.addActionListener(e -> showAddDialog());          // 显示添加对话框
         deleteButton.addActionListener(e -> deleteSelected());      // 删除选中项
+        exportButton.addActionListener(e -> exportCurrentView());   // 导出当前视图的全部数据
         logoutButton.addActionListener(e -> handleLogout());       // 处理登出
 
         // 初始显示商品
@@ -168,27 +186,8 @@ public class AdminLayout extends JFrame {
      * 清除自动登录设置并返回登录界面
      */
     private void handleLogout() {
-        // 清除自动登录设置
-        try {
-            File userInfoFile = new File("user.info");
-            if (userInfoFile.exists()) {
-                // 先读取用户名
-                String username = null;
-                try (BufferedReader reader = new BufferedReader(new FileReader(userInfoFile))) {
-                    username = reader.readLine();
-                }
-
-                // 然后再写入文件
-                try (PrintWriter writer = new PrintWriter(new FileWriter(userInfoFile))) {
-                    writer.println(username != null ? username : ""); // 保留用户名
-                    writer.println(""); // 清空密码
-                    writer.println("false"); // 取消记住密码
-                    writer.println("false"); // 取消自动登录
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        // 清除自动登录设置并撤销记住登录令牌
+        RememberedLogin.forget();
 
         // 返回登录界面
         this.dispose();
@@ -243,7 +242,7 @@ public class AdminLayout extends JFrame {
         confirmButton.addActionListener(e -> {
             try {
                 int battery = Integer.parseInt(batteryField.getText());
-                double price = Double.parseDouble(priceField.getText());
+                long price = Money.parse(priceField.getText());
                 Status status = (Status) statusBox.getSelectedItem();
                 String brand = (String) brandBox.getSelectedItem();
 
@@ -280,7 +279,7 @@ public class AdminLayout extends JFrame {
         JTextField phoneField = new JTextField();
         JComboBox<String> statusBox = new JComboBox<>(new String[]{"Common", "VIP", "SVIP", "Admin"});
         JPasswordField passwordField = new JPasswordField();
-        JTextField balanceField = new JTextField("0.0");
+        JTextField balanceField = new JTextField("0.00");
 
         dialog.add(new JLabel("用户名:"));
         dialog.add(usernameField);
@@ -300,20 +299,21 @@ public class AdminLayout extends JFrame {
                 String phone = phoneField.getText();
                 String status = (String) statusBox.getSelectedItem();
                 String password = new String(passwordField.getPassword());
-                double balance = Double.parseDouble(balanceField.getText());
+                long balance = Money.parse(balanceField.getText());
 
+                // 保存时要计算密码哈希，放到后台线程执行
                 User user = new User(0, username, phone, status, password, balance, null);
-                if (user.save()) {
-                    JOptionPane.showMessageDialog(dialog, "添加成功！");
-                    dialog.dispose();
-                    showUsers(); // 刷新表格
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "添加失败！");
-                }
+                BackgroundLoader.write(confirmButton, user::save, saved -> {
+                    if (saved) {
+                        JOptionPane.showMessageDialog(dialog, "添加成功！");
+                        dialog.dispose();
+                        showUsers(); // 刷新表格
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "添加失败！");
+                    }
+                }, ex -> JOptionPane.showMessageDialog(dialog, "数据库错误：" + ex.getMessage()));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "请输入有效的数字！");
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(dialog, "数据库错误：" + ex.getMessage());
             }
         });
 
@@ -334,6 +334,16 @@ public class AdminLayout extends JFrame {
             JOptionPane.showMessageDialog(this, "请先选择要删除的项目！");
             return;
         }
+        // 确认对话框显示期间表格仍会加载和淘汰数据块，先取出选中的行
+        List<Object[]> rows = new ArrayList<>(selectedRows.length);
+        for (int selectedRow : selectedRows) {
+            Object[] row = tableModel.getLoadedRow(selectedRow);
+            if (row == null) {
+                JOptionPane.showMessageDialog(this, "选中的记录尚未加载完成，请稍后再试！");
+                return;
+            }
+            rows.add(row);
+        }
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "确定要删除这" + selectedRows.length + "条记录吗？", "确认删除",
@@ -345,8 +355,8 @@ public class AdminLayout extends JFrame {
                 StringBuilder errorMessage = new StringBuilder("以下记录删除失败：\n");
 
                 if (showingCommodities) {
-                    for (int selectedRow : selectedRows) {
-                        int id = (int) tableModel.getValueAt(selectedRow, 4);
+                    for (Object[] row : rows) {
+                        int id = (int) row[4];
                         Commodity commodity = new Commodity();
                         commodity.setId(id);
                         if (!commodity.delete()) {
@@ -355,9 +365,9 @@ public class AdminLayout extends JFrame {
                         }
                     }
                 } else {
-                    for (int selectedRow : selectedRows) {
-                        String username = (String) tableModel.getValueAt(selectedRow, 0);
-                        String phone = (String) tableModel.getValueAt(selectedRow, 1);
+                    for (Object[] row : rows) {
+                        String username = (String) row[0];
+                        String phone = (String) row[1];
                         User user = User.findByUsernameAndPhone(username, phone);
                         if (user == null || !user.delete()) {
                             hasError = true;
@@ -487,14 +497,9 @@ public class AdminLayout extends JFrame {
         if (showingCommodities) {
             columnNames = new String[]{"品牌", "状态", "电量", "价格(元/小时)", "ID"};
         } else {
-            columnNames = new String[]{"用户名", "电话", "状态", "密码", "余额", "会员到期时间"};
+            columnNames = new String[]{"用户名", "电话", "状态", "密码", "余额", "会员到期时间", "ID"};
         }
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new LazyTableModel(columnNames, 0);
         if (dataTable != null) {
             otherPanel.remove(dataTable);
         }
@@ -503,12 +508,11 @@ public class AdminLayout extends JFrame {
         // 设置多选模式
         dataTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
 
-        // 如果是商品视图，隐藏ID列
-        if (showingCommodities) {
-            dataTable.getColumnModel().getColumn(4).setMinWidth(0);
-            dataTable.getColumnModel().getColumn(4).setMaxWidth(0);
-            dataTable.getColumnModel().getColumn(4).setWidth(0);
-        }
+        // 隐藏最后的ID列（用于删除、详情和按主键续读下一块）
+        int idColumn = columnNames.length - 1;
+        dataTable.getColumnModel().getColumn(idColumn).setMinWidth(0);
+        dataTable.getColumnModel().getColumn(idColumn).setMaxWidth(0);
+        dataTable.getColumnModel().getColumn(idColumn).setWidth(0);
         
         dataTable.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent evt) {
@@ -555,22 +559,7 @@ public class AdminLayout extends JFrame {
      * 包含所有商品信息
      */
     private void showCommodities() {
-        try {
-            List<Commodity> commodities = Commodity.getAllCommodities();
-            tableModel.setRowCount(0);
-            for (Commodity commodity : commodities) {
-                Object[] row = {
-                    commodity.getBrand(),
-                    commodity.getStatus().toString(),
-                    commodity.getBatteryLevel() + "%",
-                    String.format("%.2f", commodity.getRentalPricePerHour()),
-                    commodity.getId()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "加载商品数据失败：" + e.getMessage());
-        }
+        loadLazyTable(Commodity::countCommodities, AdminLayout::loadCommodityBlock, "加载商品数据失败：");
     }
 
     /**
@@ -578,30 +567,26 @@ public class AdminLayout extends JFrame {
      * 包含所有用户信息
      */
     private void showUsers() {
-        try {
-            List<User> users = User.getAllUsers();
-            updateUserTableData(users);
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "获取用户信息失败: " + ex.getMessage());
-        }
+        loadLazyTable(User::countUsers, AdminLayout::loadUserBlock, "获取用户信息失败: ");
     }
 
     /**
      * 搜索用户
-     * 根据输入框内容搜索用户
+     * 根据输入框内容和状态筛选条件搜索用户（内存目录，输入时实时调用）
+     * 没有关键词也不限状态时显示全部用户（按需分块加载，不一次性读入内存）
      */
     private void searchUsers() {
-        try {
-            String keyword = searchField.getText().trim();
-            if (keyword.isEmpty()) {
-                showUsers();
-                return;
-            }
-            List<User> users = User.searchUsers(keyword);
-            updateUserTableData(users);
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "搜索用户失败: " + ex.getMessage());
+        if (showingCommodities) {
+            return;
+        }
+        String keyword = searchField.getText().trim();
+        String selectedStatus = (String) userStatusFilter.getSelectedItem();
+        String status = selectedStatus.equals("全部") ? null : selectedStatus;
+        if (keyword.isEmpty() && status == null) {
+            showUsers();
+            return;
         }
+        loadUserTable(() -> UserDirectory.getInstance().search(keyword, status), "搜索用户失败: ");
     }
 
     /**
@@ -621,91 +606,174 @@ public class AdminLayout extends JFrame {
      * 根据状态、价格、品牌和电量筛选商品
      */
     private void applyCommodityFilters() {
-        try {
-            Status selectedStatus = (Status) statusFilter.getSelectedItem();
+        Status selectedStatus = (Status) statusFilter.getSelectedItem();
             String selectedBrand = (String) brandFilter.getSelectedItem();
-            Double maxPrice = null;
-            Integer maxBattery = null;
+        String selectedPrice = (String) priceFilter.getSelectedItem();
+        Long maxPrice = selectedPrice.equals("全部") ? null : Money.parse(selectedPrice);
 
-            String selectedPrice = (String) priceFilter.getSelectedItem();
-            if (!selectedPrice.equals("全部")) {
-                maxPrice = Double.parseDouble(selectedPrice);
-            }
+        String selectedBattery = (String) batteryFilter.getSelectedItem();
+        Integer maxBattery = selectedBattery.equals("全部") ? null : Integer.parseInt(selectedBattery);
 
-            String selectedBattery = (String) batteryFilter.getSelectedItem();
-            if (!selectedBattery.equals("全部")) {
-                maxBattery = Integer.parseInt(selectedBattery);
-            }
+        loadCommodityTable(() -> Commodity.filterCommodities(
+            selectedStatus.equals("全部") ? null : selectedStatus,
+            selectedBrand.equals("全部") ? null : selectedBrand,
+            null, maxPrice, null, maxBattery
+        ), "筛选失败: ");
+    }
 
-            List<Commodity> filteredCommodities = Commodity.filterCommodities(
-                selectedStatus.equals("全部") ? null : selectedStatus,
-                null, maxPrice, null, maxBattery
-            );
+    /**
+     * 应用用户筛选
+     * 根据状态筛选用户，同时保留搜索关键词
+     */
+    private void applyUserFilters() {
+        searchUsers();
+    }
 
-            if (!selectedBrand.equals("全部")) {
-                filteredCommodities = filteredCommodities.stream()
-                        .filter(c -> c.getBrand().equals(selectedBrand))
-                        .collect(Collectors.toList());
-            }
+    /**
+     * 后台加载商品数据并一次性更新表格
+     * 商品和用户视图共用同一个请求key，切换视图时丢弃尚未返回的旧结果
+     */
+    private void loadCommodityTable(BackgroundLoader.Task<List<Commodity>> query, String errorPrefix) {
+        loadTableRows(() -> toCommodityRows(query.call()), errorPrefix);
+    }
 
-            updateCommodityTableData(filteredCommodities);
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "筛选失败: " + e.getMessage());
-        }
+    /**
+     * 后台加载用户数据并一次性更新表格
+     */
+    private void loadUserTable(BackgroundLoader.Task<List<User>> query, String errorPrefix) {
+        loadTableRows(() -> toUserRows(query.call()), errorPrefix);
     }
 
     /**
-     * 应用用户筛选
-     * 根据状态筛选用户
+     * 后台生成表格行并一次性替换表格内容（筛选和搜索结果）
      */
-    private void applyUserFilters() {
-        try {
-            String selectedStatus = (String) userStatusFilter.getSelectedItem();
-            if (selectedStatus.equals("全部")) {
-                showUsers();
-                return;
-            }
-            List<User> users = User.filterUsersByStatus(selectedStatus);
-            updateUserTableData(users);
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this, "筛选失败: " + ex.getMessage());
-        }
+    private void loadTableRows(BackgroundLoader.Task<List<Object[]>> rows, String errorPrefix) {
+        BackgroundLoader.load(this, "table", rows,
+                result -> tableModel.setRows(result),
+                e -> JOptionPane.showMessageDialog(this, errorPrefix + e.getMessage()));
+    }
+
+    /**
+     * 后台只统计总行数，表格立即显示，滚动到的行再分块加载（全表视图）
+     */
+    private void loadLazyTable(BackgroundLoader.Task<Integer> count, LazyTableModel.RowSource source, String errorPrefix) {
+        BackgroundLoader.load(this, "table", count,
+                rowCount -> tableModel.setSource(source, rowCount),
+                e -> JOptionPane.showMessageDialog(this, errorPrefix + e.getMessage()));
+    }
+
+    /**
+     * 按ID顺序读取一块商品行（已加载上一行时从其ID续读）
+     */
+    private static List<Object[]> loadCommodityBlock(int offset, int limit, Object[] previousRow) throws SQLException {
+        Integer afterId = previousRow != null ? (Integer) previousRow[4] : null;
+        return toCommodityRows(Commodity.getCommodityPage(afterId, offset, limit));
+    }
+
+    /**
+     * 按ID顺序读取一块用户行
+     */
+    private static List<Object[]> loadUserBlock(int offset, int limit, Object[] previousRow) throws SQLException {
+        Integer afterId = previousRow != null ? (Integer) previousRow[6] : null;
+        return toUserRows(User.getUserPage(afterId, offset, limit));
     }
 
     /**
      * 更新商品表格数据
      * 包含筛选后的商品信息
      */
-    private void updateCommodityTableData(List<Commodity> commodities) {
-        tableModel.setRowCount(0);
+    private static List<Object[]> toCommodityRows(List<Commodity> commodities) {
+        List<Object[]> rows = new ArrayList<>(commodities.size());
         for (Commodity commodity : commodities) {
-            Object[] row = {
-                commodity.getBrand(),
-                commodity.getStatus().toString(),
-                commodity.getBatteryLevel() + "%",
-                String.format("%.2f", commodity.getRentalPricePerHour()),
-                commodity.getId()
-            };
-            tableModel.addRow(row);
+            rows.add(toCommodityRow(commodity));
         }
+        return rows;
+    }
+
+    private static Object[] toCommodityRow(Commodity commodity) {
+        return new Object[]{
+            commodity.getBrand(),
+            commodity.getStatus().toString(),
+            commodity.getBatteryLevel() + "%",
+            Money.format(commodity.getRentalPricePerHour()),
+            commodity.getId()
+        };
     }
 
     /**
      * 更新用户表格数据
      * 包含筛选后的用户信息
      */
-    private void updateUserTableData(List<User> users) {
-        tableModel.setRowCount(0);
+    private static List<Object[]> toUserRows(List<User> users) {
+        List<Object[]> rows = new ArrayList<>(users.size());
         for (User user : users) {
-            Object[] row = {
-                    user.getUsername(),
-                    user.getPhone(),
-                    user.getStatus(),
-                    user.getPassword(),
-                    String.format("%.2f", user.getBalance()),
-                    user.getExpiresTime() != null ? user.getExpiresTime().toString() : "无"
-            };
-            tableModel.addRow(row);
+            rows.add(toUserRow(user));
+        }
+        return rows;
+    }
+
+    private static Object[] toUserRow(User user) {
+        return new Object[]{
+                user.getUsername(),
+                user.getPhone(),
+                user.getStatus(),
+                user.getPassword(),
+                Money.format(user.getBalance()),
+                user.getExpiresTime() != null ? user.getExpiresTime().toString() : "无",
+                user.getId()
+        };
+    }
+
+    /**
+     * 导出当前视图的全部数据为CSV
+     * 流式读取并逐行写入文件，导出百万行也只占用常量内存；用户数据不导出密码
+     */
+    private void exportCurrentView() {
+        boolean commodities = showingCommodities;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(commodities ? "powerbanks.csv" : "users.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        BackgroundLoader.load(this, "export", () -> exportCsv(file, commodities),
+                count -> JOptionPane.showMessageDialog(this, "已导出 " + count + " 条记录到 " + file.getName()),
+                e -> JOptionPane.showMessageDialog(this, "导出失败：" + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private static long exportCsv(File file, boolean commodities) throws IOException, SQLException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write('\uFEFF'); // BOM，便于Excel识别UTF-8
+            try {
+                if (commodities) {
+                    writeCsvLine(writer, "ID", "品牌", "状态", "电量", "价格(元/小时)");
+                    return Commodity.forEachCommodity(c -> writeCsvLine(writer, c.getId(), c.getBrand(),
+                            c.getStatus(), c.getBatteryLevel(), Money.format(c.getRentalPricePerHour())));
+                }
+                writeCsvLine(writer, "ID", "用户名", "电话", "状态", "余额", "会员到期时间");
+                return User.forEachUser(u -> writeCsvLine(writer, u.getId(), u.getUsername(), u.getPhone(),
+                        u.getStatus(), Money.format(u.getBalance()), u.getExpiresTime() != null ? u.getExpiresTime() : ""));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = String.valueOf(values[i]);
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                    value = '"' + value.replace("\"", "\"\"") + '"';
+                }
+                writer.write(value);
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -714,6 +782,9 @@ public class AdminLayout extends JFrame {
      * 根据当前视图显示商品或用户详情
      */
     private void handleDoubleClick(int row, int col) {
+        if (tableModel.getLoadedRow(row) == null) {
+            return; // 尚未加载的行
+        }
         if (showingCommodities) {
             // 获取商品信息
             try {
@@ -749,24 +820,9 @@ public class AdminLayout extends JFrame {
      * 包含所有商品信息
      */
     public void refreshCommodityTable() {
-        try {
-            // 清空表格数据
-            tableModel.setRowCount(0);
-
-            // 重新加载所有商品数据
-            List<Commodity> commodities = Commodity.getAllCommodities();
-            for (Commodity commodity : commodities) {
-                tableModel.addRow(new Object[]{
-                    commodity.getBrand(),
-                    commodity.getStatus(),
-                    commodity.getBatteryLevel() + "%",
-                    String.format("￥%.2f", commodity.getRentalPricePerHour()),
-                    commodity.getId()
-                });
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "刷新商品列表失败：" + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
-        }
+        BackgroundLoader.load(this, "table", Commodity::countCommodities,
+                rowCount -> tableModel.setSource(AdminLayout::loadCommodityBlock, rowCount),
+                e -> JOptionPane.showMessageDialog(this, "刷新商品列表失败：" + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -2,6 +2,7 @@ package gui;
 
 import Commodity.Commodity;
 import Commodity.Commodity.Status;
+import util.Money;
 import javax.swing.*;
 import java.awt.*;
 import java.sql.SQLException;
@@ -48,7 +49,7 @@ public class CommodityDetailDialog extends JDialog {
         addField(panel, gbc, "电量:", batterySpinner);
 
         // 添加租金设置
-        priceField = new JTextField(String.format("%.2f", commodity.getRentalPricePerHour()), 10);
+        priceField = new JTextField(Money.format(commodity.getRentalPricePerHour()), 10);
         addField(panel, gbc, "租金(每小时):", priceField);
 
         // 添加按钮面板
@@ -82,7 +83,7 @@ public class CommodityDetailDialog extends JDialog {
             commodity.setBatteryLevel((Integer) batterySpinner.getValue());
             
             try {
-                double price = Double.parseDouble(priceField.getText());
+                long price = Money.parse(priceField.getText());
                 if (price < 0) {
                     throw new NumberFormatException("租金不能为负数");
                 }
@@ -1,23 +1,24 @@
 package gui;
 
+import User.LoginExecutor;
+import User.RememberMeToken;
 import User.User;
+import gui.util.RememberedLogin;
 import gui.util.setDocumentFilter;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.*;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.concurrent.RejectedExecutionException;
 
 public class LoginLayout extends JFrame {
 
     // 常量定义
     private static final int MAX_USERNAME_LENGTH = 20;      // 用户名最大长度
     private static final int MAX_PASSWORD_LENGTH = 16;      // 密码最大长度
-    private static final String USER_INFO_FILE = "user.info";  // 用户信息存储文件
 
     // UI组件声明
     JPanel windows = new JPanel();              // 主窗口面板
@@ -39,6 +40,8 @@ public class LoginLayout extends JFrame {
     JButton login = new JButton("登 录");                   // 登录按钮
     JButton register = new JButton("注 册");                // 注册按钮
     Font font = new Font("微软雅黑", Font.BOLD, 10);        // 统一字体
+    private String rememberedToken;                        // 记住登录令牌（用户名未改动且密码框为空时使用）
+    private String rememberedUsername;                     // 令牌所属的用户名
 
     /**
      * 登录界面构造函数
@@ -151,6 +154,25 @@ public class LoginLayout extends JFrame {
         });
         // 读取用户信息
         loadUserInfo();
+
+        // 修改用户名后不再使用记住的登录令牌（在读取用户信息之后监听，回填用户名不触发）
+        usernameText.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { forgetToken(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { forgetToken(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { forgetToken(); }
+        });
+    }
+
+    // 丢弃记住的登录令牌，之后须输入密码登录
+    private void forgetToken() {
+        if (rememberedToken != null) {
+            rememberedToken = null;
+            rememberedUsername = null;
+            alert.setText("");
+        }
     }
 
     /**
@@ -167,32 +189,29 @@ public class LoginLayout extends JFrame {
      * Load User Information
      */
     private void loadUserInfo() {
-        try {
-            File file = new File(USER_INFO_FILE);
-            if (!file.exists()) {
+        RememberedLogin saved = RememberedLogin.load();
+        if (saved == null) {
+            return;
+        }
+        usernameText.setText(saved.getUsername());
+        remember.setSelected(saved.isRemember());
+        autoLogin.setSelected(saved.isAutoLogin());
+
+        if (saved.isRemember()) {
+            rememberedToken = saved.getToken();
+            rememberedUsername = saved.getUsername();
+            if (saved.getLegacyPassword() != null) {
+                // 旧版本保存的明文密码，登录成功后改写为令牌
+                passwordText.setText(saved.getLegacyPassword());
+            } else if (rememberedToken == null) {
                 return;
+            } else {
+                alert.setText("已记住登录");
             }
-            
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            String username = reader.readLine();
-            String password = reader.readLine();
-            boolean rememberChecked = Boolean.parseBoolean(reader.readLine());
-            boolean autoLoginChecked = Boolean.parseBoolean(reader.readLine());
-            reader.close();
-
-            usernameText.setText(username != null ? username : "");
-            remember.setSelected(rememberChecked);
-            autoLogin.setSelected(autoLoginChecked);
-            
-            if (rememberChecked && password != null) {
-                passwordText.setText(password);
-                if (autoLoginChecked) {
-                    // 自动登录
-                    SwingUtilities.invokeLater(() -> login());
-                }
+            if (saved.isAutoLogin()) {
+                // 自动登录
+                SwingUtilities.invokeLater(() -> login());
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 
@@ -221,65 +240,85 @@ public class LoginLayout extends JFrame {
     /**
      * 登录功能
      * Login Function
+     * 密码校验在 LoginExecutor 中执行，完成后回到事件分发线程更新界面
      */
-    public boolean login() {
-        User user = new User();
-        user.setUsername(usernameText.getText());
-        user.setPassword(passwordText.getText());
+    public void login() {
+        String name = usernameText.getText();
+        String password = new String(passwordText.getPassword());
+        // 只有用户名与令牌所属用户一致时才用令牌登录
+        String token = password.isEmpty() && name.equals(rememberedUsername) ? rememberedToken : null;
+        boolean rememberLogin = remember.isSelected();
+        boolean autoLoginChecked = autoLogin.isSelected();
 
-        try {
-            boolean isValidUser = user.checkUser_IsDataBase(user.getUsername(), user.getPassword());
-            boolean isAdmin = user.checkUser_IsAdmin(user.getUsername(), user.getPassword());
-
-            if (isValidUser) {
-                if (isAdmin) {
-                    alert.setText("欢迎管理员");
-                    alert.setForeground(Color.GREEN);
-                    // 跳转到管理员界面
-                    SwingUtilities.invokeLater(() -> {
-                        AdminLayout adminLayout = new AdminLayout();
-                        adminLayout.setVisible(true);
-                        dispose(); // 关闭登录窗口
-                    });
-                } else {
-                    alert.setText("登入成功");
-                    alert.setForeground(Color.GREEN);
-                    // 跳转到用户界面
-                    SwingUtilities.invokeLater(() -> {
-                        UserLayout userLayout = new UserLayout(user.getUsername());
-                        userLayout.setVisible(true);
-                        dispose(); // 关闭登录窗口
-                    });
+        login.setEnabled(false);
+        alert.setText("正在登录...");
+        alert.setForeground(Color.GRAY);
+        LoginExecutor.submit(() -> {
+            // 一次查询完成认证并取得用户角色
+            User user = token != null ? RememberMeToken.authenticate(token) : User.authenticate(name, password);
+            if (user != null && token != null && !name.equals(user.getUsername())) {
+                user = null; // 令牌属于其他账户（用户名已被修改）
+            }
+            String newToken = null;
+            if (user != null) {
+                if (token != null) {
+                    RememberMeToken.revoke(token); // 令牌登录后轮换
                 }
-                // 保存用户信息
-                saveUserInfo();
-                return true;
-            } else {
+                if (rememberLogin) {
+                    newToken = RememberMeToken.issue(user.getId());
+                }
+            }
+            return new LoginResult(user, newToken);
+        }).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            login.setEnabled(true);
+            if (error != null) {
+                boolean busy = error.getCause() instanceof RejectedExecutionException
+                        || error instanceof RejectedExecutionException;
+                alert.setText(busy ? "登录人数过多，请稍后再试" : "登录失败");
+                alert.setForeground(Color.RED);
+                error.printStackTrace();
+                return;
+            }
+            User user = result.user;
+            if (user == null) {
+                rememberedToken = null;
+                rememberedUsername = null;
                 alert.setText("用户名或密码错误");
                 alert.setForeground(Color.RED);
-                return false;
+                return;
             }
-        } catch (Exception e) {
-            alert.setText("登录失败");
-            alert.setForeground(Color.RED);
-            e.printStackTrace();
-            return false;
-        }
+            if (user.isAdmin()) {
+                alert.setText("欢迎管理员");
+                alert.setForeground(Color.GREEN);
+                // 跳转到管理员界面
+                SwingUtilities.invokeLater(() -> {
+                    AdminLayout adminLayout = new AdminLayout();
+                    adminLayout.setVisible(true);
+                    dispose(); // 关闭登录窗口
+                });
+            } else {
+                alert.setText("登入成功");
+                alert.setForeground(Color.GREEN);
+                // 跳转到用户界面，直接使用认证得到的用户信息
+                SwingUtilities.invokeLater(() -> {
+                    UserLayout userLayout = new UserLayout(user);
+                    userLayout.setVisible(true);
+                    dispose(); // 关闭登录窗口
+                });
+            }
+            // 保存用户信息（只保存令牌，不保存密码）
+            RememberedLogin.save(user.getUsername(), result.token, rememberLogin, autoLoginChecked);
+        }));
     }
 
-    /**
-     * 保存用户信息
-     * Save User Information
-     */
-    private void saveUserInfo() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USER_INFO_FILE))) {
-            writer.println(usernameText.getText());
-            // Only save password if "remember password" is checked
-            writer.println(remember.isSelected() ? new String(passwordText.getPassword()) : "");
-            writer.println(remember.isSelected());
-            writer.println(autoLogin.isSelected());
-        } catch (IOException e) {
-            e.printStackTrace();
+    // 后台登录结果：用户和新签发的记住登录令牌
+    private static final class LoginResult {
+        final User user;
+        final String token;
+
+        LoginResult(User user, String token) {
+            this.user = user;
+            this.token = token;
         }
     }
 }
@@ -1,6 +1,7 @@
 package gui;
 
 import Order.Order;
+import util.Money;
 import javax.swing.*;
 import java.awt.*;
 
@@ -29,8 +30,8 @@ public class OrderDetailDialog extends JDialog {
         addField(panel, gbc, "租借时间:", order.getRentalStartTime().toString());
         addField(panel, gbc, "归还时间:", order.getReturnTime() != null ? order.getReturnTime().toString() : "未归还");
         addField(panel, gbc, "租借时长:", order.getRentalDurationHours() + "小时");
-        addField(panel, gbc, "押金:", "￥" + String.format("%.2f", order.getDeposit()));
-        addField(panel, gbc, "总费用:", "￥" + String.format("%.2f", order.getTotalCost()));
+        addField(panel, gbc, "押金:", "￥" + Money.format(order.getDeposit()));
+        addField(panel, gbc, "总费用:", "￥" + Money.format(order.getTotalCost()));
 
         // 添加关闭按钮
         gbc.gridy++;
@@ -2,13 +2,21 @@ package gui;
 
 import Order.Order;
 import User.User;
+import gui.util.BackgroundLoader;
+import gui.util.TableRows;
+import util.Money;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 
 public class OrderLayout extends JFrame {
+    private static final int PAGE_SIZE = 50;          // 每页订单数
+    private static final int LOAD_MORE_THRESHOLD = 100; // 距底部多少像素时加载下一页
+
     private User currentUser;
     private JPanel mainPanel;
     private JPanel topPanel;
@@ -17,6 +25,13 @@ public class OrderLayout extends JFrame {
     private JTextField searchField;
     private JButton searchButton;
     private JButton deleteButton;
+    private JScrollPane scrollPane;
+
+    // 游标分页状态（搜索结果一次性加载，不分页）
+    private Timestamp lastStartTime;
+    private int lastId;
+    private boolean hasMore;
+    private boolean loadingPage;
 
     public OrderLayout(User user) {
         this.currentUser = user;
@@ -102,7 +117,13 @@ public class OrderLayout extends JFrame {
         popupMenu.add(copyItem);
         orderTable.setComponentPopupMenu(popupMenu);
 
-        JScrollPane scrollPane = new JScrollPane(orderTable);
+        scrollPane = new JScrollPane(orderTable);
+        // 滚动到接近底部时加载下一页
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                loadMoreIfNeeded();
+            }
+        });
 
         // 添加组件到主面板
         mainPanel.add(topPanel, BorderLayout.NORTH);
@@ -117,15 +138,57 @@ public class OrderLayout extends JFrame {
         
         // 添加搜索框回车事件
         searchField.addActionListener(e -> searchOrders());
+
+        // 窗口显示后检查首页是否填满表格
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowOpened(java.awt.event.WindowEvent e) {
+                loadMoreIfNeeded();
+            }
+        });
     }
 
     private void loadOrders() {
-        try {
-            List<Order> orders = Order.getOrderHistory(currentUser.getId());
-            updateTableData(orders);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "加载订单失败：" + e.getMessage());
+        tableModel.setRowCount(0);
+        lastStartTime = null;
+        lastId = 0;
+        hasMore = true;
+        loadNextPage();
+    }
+
+    // 订单列表的加载、翻页和搜索共用一个请求key，刷新或搜索时丢弃尚未返回的旧页
+    private void loadNextPage() {
+        Timestamp afterStartTime = lastStartTime;
+        int afterId = lastId;
+        loadingPage = true;
+        BackgroundLoader.load(this, "orders",
+                () -> Order.getOrderHistory(currentUser.getId(), afterStartTime, afterId, PAGE_SIZE),
+                orders -> {
+                    loadingPage = false;
+                    TableRows.addRows(tableModel, toRows(orders));
+                    hasMore = orders.size() == PAGE_SIZE;
+                    if (!orders.isEmpty()) {
+                        Order last = orders.get(orders.size() - 1);
+                        lastStartTime = last.getRentalStartTime();
+                        lastId = last.getId();
+                    }
+                },
+                e -> {
+                    loadingPage = false;
+                    hasMore = false;
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "加载订单失败：" + e.getMessage());
+                });
+    }
+
+    // 表格布局变化或滚动时调用；内容不足一屏时也会继续加载
+    private void loadMoreIfNeeded() {
+        if (!hasMore || loadingPage || !scrollPane.isShowing()) {
+            return;
+        }
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - LOAD_MORE_THRESHOLD) {
+            loadNextPage();
         }
     }
 
@@ -136,13 +199,15 @@ public class OrderLayout extends JFrame {
             return;
         }
 
-        try {
-            List<Order> orders = Order.searchOrders(currentUser.getId(), keyword);
-            updateTableData(orders);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "搜索订单失败：" + e.getMessage());
-        }
+        hasMore = false;
+        loadingPage = false;
+        BackgroundLoader.load(this, "orders",
+                () -> toRows(Order.searchOrders(currentUser.getId(), keyword)),
+                rows -> TableRows.setRows(tableModel, rows),
+                e -> {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "搜索订单失败：" + e.getMessage());
+                });
     }
 
     private void deleteSelectedOrders() {
@@ -193,20 +258,20 @@ public class OrderLayout extends JFrame {
         }
     }
 
-    private void updateTableData(List<Order> orders) {
-        tableModel.setRowCount(0);
+    private static List<Object[]> toRows(List<Order> orders) {
+        List<Object[]> rows = new ArrayList<>(orders.size());
         for (Order order : orders) {
-            Object[] row = {
+            rows.add(new Object[]{
                 order.getOrderCode(),
                 order.getPowerbankId(),
                 order.getBrand(),
                 order.getRentalStartTime(),
                 order.getReturnTime(),
                 order.getRentalDurationHours(),
-                String.format("￥%.2f", order.getTotalCost())
-            };
-            tableModel.addRow(row);
+                "￥" + Money.format(order.getTotalCost())
+            });
         }
+        return rows;
     }
 
     private JButton createStyledButton(String text, Color backgroundColor) {
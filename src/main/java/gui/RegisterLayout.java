@@ -6,6 +6,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 import User.User;
+import gui.util.BackgroundLoader;
 import gui.util.setDocumentFilter;
 
 public class RegisterLayout extends JFrame {
@@ -130,21 +131,23 @@ public class RegisterLayout extends JFrame {
         user.setPassword(passwordText.getText());
         user.setConfirmPassword(confirmPasswordText.getText());
 
-        try {
-            boolean isValidUser = user.checkUser_register(user.getUsername(), user.getPhone(), user.getPassword(), user.getConfirmPassword());
-            if (isValidUser) {
-                alert.setText("欢迎注册");
-                alert.setForeground(Color.GREEN);
-                System.out.println("注册成功");
-            } else {
-                alert.setText("注册失败");
-                System.out.println("注册失败");
-            }
-        }catch (Exception e){
-            alert.setText("注册失败");
-            e.printStackTrace();
-            System.out.println("注册过程中发生错误");
-        }
+        // 注册时要计算密码哈希，放到后台线程执行
+        BackgroundLoader.write(register,
+                () -> user.checkUser_register(user.getUsername(), user.getPhone(), user.getPassword(), user.getConfirmPassword()),
+                isValidUser -> {
+                    if (isValidUser) {
+                        alert.setText("欢迎注册");
+                        alert.setForeground(Color.GREEN);
+                        System.out.println("注册成功");
+                    } else {
+                        alert.setText("注册失败");
+                        System.out.println("注册失败");
+                    }
+                }, e -> {
+                    alert.setText("注册失败");
+                    e.printStackTrace();
+                    System.out.println("注册过程中发生错误");
+                });
     }
 
 //    public static void main(String[] args) {
@@ -1,6 +1,8 @@
 package gui;
 
 import User.User;
+import gui.util.BackgroundLoader;
+import util.Money;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
@@ -77,7 +79,7 @@ public class UserDetailDialog extends JDialog {
         addEditableField(panel, gbc, "用户名:", usernameField);
         addEditableField(panel, gbc, "电话:", phoneField);
         addEditableField(panel, gbc, "新密码:", passwordField);
-        addField(panel, gbc, "余额:", "￥" + String.format("%.2f", user.getBalance()));
+        addField(panel, gbc, "余额:", "￥" + Money.format(user.getBalance()));
 
         // 添加状态选择下拉框
         statusComboBox = new JComboBox<>(new String[]{"Common", "VIP", "SVIP"});
@@ -98,7 +100,7 @@ public class UserDetailDialog extends JDialog {
         
         // 保存按钮
         JButton saveButton = new JButton("保存修改");
-        saveButton.addActionListener(e -> saveChanges());
+        saveButton.addActionListener(e -> saveChanges(saveButton));
         
         // 登录按钮
         JButton loginButton = new JButton("登录此账户");
@@ -226,27 +228,26 @@ public class UserDetailDialog extends JDialog {
         }
     }
 
-    private void saveChanges() {
-        try {
-            // 更新用户信息
-            currentUser.setUsername(usernameField.getText());
-            currentUser.setPhone(phoneField.getText());
-            String newPassword = new String(passwordField.getPassword());
-            if (!newPassword.isEmpty()) {
-                currentUser.setPassword(newPassword);
-            }
-            currentUser.setStatus((String) statusComboBox.getSelectedItem());
-            currentUser.setExpiresTime(new Timestamp(((Date) expirySpinner.getValue()).getTime()));
-            
-            if (currentUser.save()) {
+    private void saveChanges(JButton saveButton) {
+        // 更新用户信息
+        currentUser.setUsername(usernameField.getText());
+        currentUser.setPhone(phoneField.getText());
+        String newPassword = new String(passwordField.getPassword());
+        if (!newPassword.isEmpty()) {
+            currentUser.setPassword(newPassword);
+        }
+        currentUser.setStatus((String) statusComboBox.getSelectedItem());
+        currentUser.setExpiresTime(new Timestamp(((Date) expirySpinner.getValue()).getTime()));
+
+        // 修改密码时要计算哈希，放到后台线程保存
+        BackgroundLoader.write(saveButton, currentUser::save, saved -> {
+            if (saved) {
                 JOptionPane.showMessageDialog(this, "保存成功！");
                 adminLayout.refreshUserTable(); // 刷新管理界面的用户列表
             } else {
                 JOptionPane.showMessageDialog(this, "保存失败！");
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "保存失败：" + ex.getMessage());
-        }
+        }, ex -> JOptionPane.showMessageDialog(this, "保存失败：" + ex.getMessage()));
     }
 
     private void addEditableField(JPanel panel, GridBagConstraints gbc, String label, JTextField field) {
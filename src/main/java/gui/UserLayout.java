@@ -1,9 +1,15 @@
 package gui;
 
 import Commodity.Commodity;
+import Order.ActiveRental;
 import Order.Order;
 import User.User;
-import util.AddTestdata;
+import gui.util.BackgroundLoader;
+import gui.util.RememberedLogin;
+import gui.util.TableRows;
+import util.Money;
+import util.OrderCodeGenerator;
+import util.Transaction;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -18,6 +24,7 @@ import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 public class UserLayout extends JFrame {
@@ -36,6 +43,7 @@ public class UserLayout extends JFrame {
     private JLabel statusLabel;
     private JTable dataTable;
     private DefaultTableModel tableModel;
+    private DefaultTableModel rentalsModel;
     private JButton rentButton;
     private JButton rechargeButton;
     private JButton orderHistoryButton;
@@ -49,19 +57,34 @@ public class UserLayout extends JFrame {
     private boolean isFromAdmin;
 
     public UserLayout(String username, boolean isFromAdmin) {
+        this(loadUser(username), username, isFromAdmin);
+    }
+
+    public UserLayout(String username) {
+        this(username, false);
+    }
+
+    /**
+     * 使用已认证的用户打开界面（登录时已查询过用户信息，不再按用户名重新加载）
+     * @param user 已认证的用户
+     */
+    public UserLayout(User user) {
+        this(user, user.getUsername(), false);
+    }
+
+    private UserLayout(User user, String username, boolean isFromAdmin) {
         this.username = username;
         this.isFromAdmin = isFromAdmin;
-        try {
-            // 使用User类的方法加载用户信息
-            this.currentUser = User.loadUserByUsername(username);
-            if (this.currentUser == null) {
-                throw new SQLException("无法加载用户信息");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "加载用户信息失败：" + e.getMessage());
-        }
+        this.currentUser = user;
         initializeUI();
+        if (currentUser != null) {
+            // 登录后余额可能已被其他会话改变，显示前重新读取已提交的余额（后台读取，完成后更新余额标签）
+            BackgroundLoader.load(this, "balance", () -> {
+                currentUser.refreshBalance();
+                return currentUser.getBalance();
+            }, balance -> balanceLabel.setText("余额: ￥" + Money.format(balance)),
+                    e -> JOptionPane.showMessageDialog(this, "加载用户信息失败：" + e.getMessage()));
+        }
 
         // 加载用户头像
         if (currentUser != null && currentUser.getAvatar() != null) {
@@ -69,8 +92,19 @@ public class UserLayout extends JFrame {
         }
     }
 
-    public UserLayout(String username) {
-        this(username, false);
+    private static User loadUser(String username) {
+        try {
+            // 使用User类的方法加载用户信息
+            User user = User.loadUserByUsername(username);
+            if (user == null) {
+                throw new SQLException("无法加载用户信息");
+            }
+            return user;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null, "加载用户信息失败：" + e.getMessage());
+            return null;
+        }
     }
 
     private void initializeUI() {
@@ -119,7 +153,7 @@ public class UserLayout extends JFrame {
         userInfoPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
 
         welcomeLabel = new JLabel("用户名: " + username);
-        balanceLabel = new JLabel("余额: ￥" + String.format("%.2f", currentUser.getBalance()));
+        balanceLabel = new JLabel("余额: ￥" + Money.format(currentUser.getBalance()));
         statusLabel = new JLabel("会员状态: " + currentUser.getStatus());
 
         welcomeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -317,27 +351,29 @@ public class UserLayout extends JFrame {
         panel.add(rechargeButton, gbc);
 
         rechargeButton.addActionListener(e -> {
+            long amount;
             try {
-                double amount = Double.parseDouble(amountField.getText());
-                if (amount <= 0) {
-                    JOptionPane.showMessageDialog(this, "请输入正确的充值金额");
-                    return;
-                }
+                amount = Money.parse(amountField.getText());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "请输入有效的金额");
+                return;
+            }
+            if (amount <= 0) {
+                JOptionPane.showMessageDialog(this, "请输入正确的充值金额");
+                return;
+            }
 
-                // 使用User类的方法进行充值
-                if (currentUser.rechargeBalance(amount)) {
+            // 使用User类的方法进行充值（后台事务，完成前禁用充值按钮）
+            BackgroundLoader.write(rechargeButton, () -> currentUser.rechargeBalance(amount), recharged -> {
+                if (recharged) {
                     // 更新显示
-                    balanceLabel.setText("余额: ￥" + String.format("%.2f", currentUser.getBalance()));
+                    balanceLabel.setText("余额: ￥" + Money.format(currentUser.getBalance()));
                     JOptionPane.showMessageDialog(this, "充值成功！");
                     amountField.setText("");
                 } else {
                     JOptionPane.showMessageDialog(this, "充值失败");
                 }
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "请输入有效的金额");
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(this, "充值失败：" + ex.getMessage());
-            }
+            }, ex -> JOptionPane.showMessageDialog(this, "充值失败：" + ex.getMessage()));
         });
 
         return panel;
@@ -346,14 +382,14 @@ public class UserLayout extends JFrame {
     private JPanel createCurrentRentalsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         String[] columnNames = {"电源ID", "品牌", "电量", "租借时间", "当前费用", "操作"};
-        DefaultTableModel model = new DefaultTableModel(columnNames, 0) {
+        rentalsModel = new DefaultTableModel(columnNames, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return column == 5; // 只有操作列可编辑
             }
         };
 
-        JTable table = new JTable(model);
+        JTable table = new JTable(rentalsModel);
         table.getColumnModel().getColumn(5).setCellRenderer(new ButtonRenderer());
         table.getColumnModel().getColumn(5).setCellEditor(new ButtonEditor(new JCheckBox()));
 
@@ -372,165 +408,160 @@ public class UserLayout extends JFrame {
     }
 
     private void loadCommodities() {
-        tableModel.setRowCount(0);
-        try {
-            List<Commodity> powerBanks = Commodity.getAvailablePowerBanks();
-            for (Commodity powerBank : powerBanks) {
-                Object[] row = {
+        BackgroundLoader.load(this, "commodities", () -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Commodity powerBank : Commodity.getAvailablePowerBanks()) {
+                rows.add(new Object[]{
                     powerBank.getId(),
                     powerBank.getBrand(),
                     powerBank.getBatteryLevel() + "%",
                     powerBank.getStatus().toString(),
-                    String.format("%.2f", powerBank.getRentalPricePerHour()),
+                    Money.format(powerBank.getRentalPricePerHour()),
                     "租借"
-                };
-                tableModel.addRow(row);
+                });
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "加载商品数据失败：" + e.getMessage());
-        }
+            return rows;
+        }, rows -> TableRows.setRows(tableModel, rows),
+           e -> JOptionPane.showMessageDialog(this, "加载商品数据失败：" + e.getMessage()));
     }
 
     private void loadCurrentRentals() {
         System.out.println("开始加载当前租借数据 - 用户ID: " + currentUser.getId());
-        try {
-            List<Order> rentals = Order.getCurrentRentals(currentUser.getId());
+        BackgroundLoader.load(this, "currentRentals", () -> {
+            // 一次查询取得订单及对应电源的租金和电量
+            List<ActiveRental> rentals = Order.getActiveRentals(currentUser.getId());
             System.out.println("查询到 " + rentals.size() + " 条租借记录");
 
-            DefaultTableModel model = (DefaultTableModel) ((JTable)((JScrollPane)((JPanel)contentPanel.getComponent(2)).getComponent(0)).getViewport().getView()).getModel();
-            model.setRowCount(0);
-
-            for (Order rental : rentals) {
-                System.out.println("处理租借记录 - 单ID: " + rental.getId() + ", 电源ID: " + rental.getPowerbankId());
+            List<Object[]> rows = new ArrayList<>();
+            for (ActiveRental rental : rentals) {
                 long hours = ChronoUnit.HOURS.between(rental.getRentalStartTime().toLocalDateTime(), LocalDateTime.now());
                 if (hours == 0) hours = 1;
-                double currentCost = hours * Commodity.getRentalPricePerHour(rental.getPowerbankId());
-                double deposit = rental.getDeposit(); // 获取订单的押金金额
-
-                // 获取电源信息
-                Commodity powerBank = Commodity.findById(rental.getPowerbankId());
-                String batteryLevel = powerBank != null ? powerBank.getBatteryLevel() + "%" : "N/A";
+                long currentCost = Transaction.calculateActualCost(
+                        Transaction.calculateRentalCost(hours, rental.getRentalPricePerHour()), currentUser.getStatus(),
+                        rental.getBrand(), rental.getRentalStartTime().toLocalDateTime().getHour(), hours);
 
-                Object[] row = {
+                rows.add(new Object[]{
                     rental.getPowerbankId(), // 显示电源ID而不是订单ID
                     rental.getBrand(),
-                    batteryLevel,
+                    rental.getBatteryLevel() + "%",
                     rental.getRentalStartTime().toString(),
-                    String.format("￥%.2f", currentCost),
+                    "￥" + Money.format(currentCost),
                     "归还"
-                };
-                model.addRow(row);
+                });
             }
-        } catch (SQLException e) {
+            return rows;
+        }, rows -> TableRows.setRows(rentalsModel, rows), e -> {
             System.err.println("加载当前租借数据失败 - 错误详情：");
             e.printStackTrace(System.err);
             JOptionPane.showMessageDialog(this, "加载当前租借数据失败：" + e.getMessage());
-        }
+        });
     }
 
-    private void handleRental(int powerbankId, String brand) {
+    private void handleRental(JTable table, int powerbankId, String brand) {
         System.out.println("开始处理租借 - 用户: " + currentUser.getUsername() + ", 电源ID: " + powerbankId);
-        try {
+        BackgroundLoader.write(table, () -> {
             // 检查电源是否存在
             Commodity powerBank = Commodity.findById(powerbankId);
             if (powerBank == null) {
                 System.err.println("租借失败 - 未找到电源ID: " + powerbankId);
-                JOptionPane.showMessageDialog(this, "未找到指定的电源。");
-                return;
+                return false;
             }
 
             // 开始租借流程
             System.out.println("开始创建订单...");
-            if (Order.createRental(currentUser.getId(), powerbankId, brand)) {
-                System.out.println("订单创建成功，更新电源状态...");
-                if (powerBank.updateStatus(Commodity.Status.InUse)) {
-                    // 更新用户余额显示
-                    currentUser.refreshBalance();
-                    balanceLabel.setText("余额: ￥" + String.format("%.2f", currentUser.getBalance()));
-
-                    // 显示租借成功信息，包含押金信息
-                    double deposit = currentUser.isVipOrSvip() ? 0 : 99.0;
-                    String message = String.format("租借成功！\n%s\n请在正在租借中查看详情",
-                        deposit > 0 ? "已扣除押金：￥" + deposit : "VIP用户无需支付押金");
-                    JOptionPane.showMessageDialog(this, message);
-
-                    loadCurrentRentals();
-                    loadCommodities();
-                } else {
-                    System.err.println("租借失败 - 无法更新电源状态");
-                    throw new SQLException("更新电源状态失败");
-                }
-            } else {
+            if (!Order.createRental(currentUser.getId(), powerbankId, brand)) {
                 System.err.println("租借失败 - 无法创建订单");
                 throw new SQLException("创建订单失败");
             }
-        } catch (SQLException e) {
+            System.out.println("订单创建成功，更新电源状态...");
+            if (!powerBank.updateStatus(Commodity.Status.InUse)) {
+                System.err.println("租借失败 - 无法更新电源状态");
+                throw new SQLException("更新电源状态失败");
+            }
+            currentUser.refreshBalance();
+            return true;
+        }, rented -> {
+            if (!rented) {
+                JOptionPane.showMessageDialog(this, "未找到指定的电源。");
+                return;
+            }
+            // 更新用户余额显示
+            balanceLabel.setText("余额: ￥" + Money.format(currentUser.getBalance()));
+
+            // 显示租借成功信息，包含押金信息
+            long deposit = Transaction.calculateDeposit(currentUser.getStatus());
+            String message = String.format("租借成功！\n%s\n请在正在租借中查看详情",
+                deposit > 0 ? "已扣除押金：￥" + Money.format(deposit) : "会员用户无需支付押金");
+            JOptionPane.showMessageDialog(this, message);
+
+            loadCurrentRentals();
+            loadCommodities();
+        }, e -> {
             System.err.println("租借处理异常:");
             e.printStackTrace(System.err);
             JOptionPane.showMessageDialog(this, "租借失败：" + e.getMessage());
-        }
+        });
     }
 
-    private void handleReturn(int powerBankId) {
+    private void handleReturn(JTable table, int powerBankId) {
         System.out.println("开始处理归还 - 电源ID: " + powerBankId);
-        try {
+        // 后台完成归还，返回提示信息；返回null表示未找到租借信息或已归还
+        BackgroundLoader.write(table, () -> {
             Order rental = Order.getRentalByPowerbankId(powerBankId);
-            if (rental != null && rental.getUserId() == currentUser.getId()) {
-                // 计算租借时长和费用
-                long hours = ChronoUnit.HOURS.between(rental.getRentalStartTime().toLocalDateTime(), LocalDateTime.now());
-                if (hours == 0) hours = 1; // 最少收取一小时的费用
-                double totalCost = hours * Commodity.getRentalPricePerHour(powerBankId);
-                double deposit = rental.getDeposit(); // 获取订单的押金金额
-
-                // 生成订单号
-                String orderCode = AddTestdata.generateOrderCode(currentUser.getId());
-
-                System.out.println("归还信息 - 订单ID: " + rental.getId() + ", 时长: " + hours + "小时, 费用: " + totalCost);
-
-                // 更新订单和电源状态
-                if (Order.returnRental(rental.getId(), powerBankId, hours, totalCost, orderCode)) {
-                    // 更新用户余额显示
-                    currentUser.refreshBalance();
-                    balanceLabel.setText("余额: ￥" + String.format("%.2f", currentUser.getBalance()));
-
-                    // 刷新显示
-                    loadCurrentRentals();
-                    loadCommodities();
-
-                    // 计算实际费用考虑会员折扣）
-                    double actualCost = totalCost;
-                    if (currentUser.isSvip()) {
-                        actualCost *= 0.5; // SVIP 5折
-                    } else if (currentUser.isVip()) {
-                        actualCost *= 0.8; // VIP 8折
-                    }
-
-                    // 显示详细的费用信息
-                    String message = String.format("归还成功！\n" +
-                            "租借时长：%d小时\n" +
-                            "租金费用：￥%.2f\n" +
-                            "%s\n" +  // 会员折扣信息
-                            "实际费用：￥%.2f\n" +
-                            "%s\n" +  // 押金信息
-                            "订单号：%s",
-                            hours,
-                            totalCost,
-                            currentUser.isSvip() ? "SVIP享受5折优惠" : (currentUser.isVip() ? "VIP享受8折优惠" : "普通用户无折扣"),
-                            actualCost,
-                            deposit > 0 ? String.format("已退还押金：￥%.2f", deposit) : "无押金退还",
-                            orderCode);
-
-                    JOptionPane.showMessageDialog(this, message);
-                }
-            } else {
+            if (rental == null || rental.getUserId() != currentUser.getId()) {
                 System.err.println("未找到租借信息或用户ID不匹配 - 电源ID: " + powerBankId);
+                return null;
+            }
+            // 计算租借时长和费用
+            long hours = ChronoUnit.HOURS.between(rental.getRentalStartTime().toLocalDateTime(), LocalDateTime.now());
+            if (hours == 0) hours = 1; // 最少收取一小时的费用
+            long totalCost = Transaction.calculateRentalCost(hours, Commodity.getRentalPricePerHour(powerBankId));
+            long deposit = rental.getDeposit(); // 获取订单的押金金额
+
+            // 生成订单号
+            String orderCode = OrderCodeGenerator.next();
+
+            System.out.println("归还信息 - 订单ID: " + rental.getId() + ", 时长: " + hours + "小时, 费用: " + Money.format(totalCost));
+
+            // 更新订单和电源状态，返回实际扣除的租金（按数据库中的会员状态计费，界面缓存的状态可能已过期）
+            long actualCost = Order.returnRental(rental.getId(), powerBankId, hours, totalCost, orderCode);
+            if (actualCost < 0) {
+                return null;
+            }
+            currentUser.refreshBalance();
+
+            // 显示详细的费用信息
+            return String.format("归还成功！\n" +
+                    "租借时长：%d小时\n" +
+                    "租金费用：￥%s\n" +
+                    "%s\n" +  // 优惠信息
+                    "实际费用：￥%s\n" +
+                    "%s\n" +  // 押金信息
+                    "订单号：%s",
+                    hours,
+                    Money.format(totalCost),
+                    actualCost < totalCost ? "优惠减免：￥" + Money.format(totalCost - actualCost) : "无优惠",
+                    Money.format(actualCost),
+                    deposit > 0 ? "已退还押金：￥" + Money.format(deposit) : "无押金退还",
+                    orderCode);
+        }, message -> {
+            if (message == null) {
                 JOptionPane.showMessageDialog(this, "未找到租借信息，请刷新后重试");
+                return;
             }
-        } catch (SQLException e) {
+            // 更新用户余额显示
+            balanceLabel.setText("余额: ￥" + Money.format(currentUser.getBalance()));
+
+            // 刷新显示
+            loadCurrentRentals();
+            loadCommodities();
+
+            JOptionPane.showMessageDialog(this, message);
+        }, e -> {
             System.err.println("归还处理异常:");
             e.printStackTrace(System.err);
             JOptionPane.showMessageDialog(this, "归还失败：" + e.getMessage());
-        }
+        });
     }
 
     private void showEditProfileDialog() {
@@ -555,27 +586,26 @@ public class UserLayout extends JFrame {
 
         JButton saveButton = new JButton("保存");
         saveButton.addActionListener(e -> {
-            try {
-                String newUsername = usernameField.getText();
-                String newPhone = phoneField.getText();
-                String newPassword = new String(passwordField.getPassword());
+            String newUsername = usernameField.getText();
+            String newPhone = phoneField.getText();
+            String newPassword = new String(passwordField.getPassword());
 
-                if (!newPassword.isEmpty()) {
-                    currentUser.setPassword(newPassword);
-                }
-                currentUser.setUsername(newUsername);
-                currentUser.setPhone(newPhone);
+            if (!newPassword.isEmpty()) {
+                currentUser.setPassword(newPassword);
+            }
+            currentUser.setUsername(newUsername);
+            currentUser.setPhone(newPhone);
 
-                if (currentUser.save()) {
+            // 修改密码时要计算哈希，放到后台线程保存
+            BackgroundLoader.write(saveButton, currentUser::save, saved -> {
+                if (saved) {
                     JOptionPane.showMessageDialog(dialog, "修改成功！");
                     welcomeLabel.setText("用户名: " + newUsername);
                     dialog.dispose();
                 } else {
                     JOptionPane.showMessageDialog(dialog, "修改失败！");
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(dialog, "保存失败：" + ex.getMessage());
-            }
+            }, ex -> JOptionPane.showMessageDialog(dialog, "保存失败：" + ex.getMessage()));
         });
 
         avatarButton.addActionListener(e -> {
@@ -641,43 +671,45 @@ public class UserLayout extends JFrame {
             JButton source = (JButton) e.getSource();
             String type = "";
             int months = 0;
-            double cost = 0;
+            long cost = 0; // 会员费（分）
 
             if (source == svipMonthButton) {
                 type = "SVIP";
                 months = 1;
-                cost = 30;
+                cost = 3000;
             } else if (source == svipYearButton) {
                 type = "SVIP";
                 months = 12;
-                cost = 180;
+                cost = 18000;
             } else if (source == vipMonthButton) {
                 type = "VIP";
                 months = 1;
-                cost = 25;
+                cost = 2500;
             } else if (source == vipYearButton) {
                 type = "VIP";
                 months = 12;
-                cost = 150;
+                cost = 15000;
             }
 
-            try {
-                if (currentUser.getBalance() < cost) {
-                    JOptionPane.showMessageDialog(dialog, "余额不足，请先充值！");
-                    return;
-                }
+            if (currentUser.getBalance() < cost) {
+                JOptionPane.showMessageDialog(dialog, "余额不足，请先充值！");
+                return;
+            }
 
-                if (currentUser.upgradeMembership(type, months, cost)) {
-                    statusLabel.setText("会员状态: " + type);
-                    balanceLabel.setText("余额: ￥" + String.format("%.2f", currentUser.getBalance()));
+            // 后台事务，完成前禁用所点的按钮
+            String membership = type;
+            int duration = months;
+            long fee = cost;
+            BackgroundLoader.write(source, () -> currentUser.upgradeMembership(membership, duration, fee), upgraded -> {
+                if (upgraded) {
+                    statusLabel.setText("会员状态: " + membership);
+                    balanceLabel.setText("余额: ￥" + Money.format(currentUser.getBalance()));
                     JOptionPane.showMessageDialog(dialog, "升级成功！");
                     dialog.dispose();
                 } else {
                     JOptionPane.showMessageDialog(dialog, "升级失败！");
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(dialog, "操作失败：" + ex.getMessage());
-            }
+            }, ex -> JOptionPane.showMessageDialog(dialog, "操作失败：" + ex.getMessage()));
         };
 
         svipMonthButton.addActionListener(upgradeListener);
@@ -691,27 +723,8 @@ public class UserLayout extends JFrame {
     }
 
     private void handleLogout() {
-        // 清除自动登录设置
-        try {
-            File userInfoFile = new File("user.info");
-            if (userInfoFile.exists()) {
-                // 先读取用户名
-                String username = null;
-                try (BufferedReader reader = new BufferedReader(new FileReader(userInfoFile))) {
-                    username = reader.readLine();
-                }
-
-                // 然后再写入文件
-                try (PrintWriter writer = new PrintWriter(new FileWriter(userInfoFile))) {
-                    writer.println(username != null ? username : ""); // 保留用户名
-                    writer.println(""); // 清空密码
-                    writer.println("false"); // 取消记住密码
-                    writer.println("false"); // 取消自动登录
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        // 清除自动登录设置并撤销记住登录令牌
+        RememberedLogin.forget();
 
         // 返回登录界面
         this.dispose();
@@ -752,9 +765,9 @@ public class UserLayout extends JFrame {
                         String buttonText = button.getText();
                         if ("租借".equals(buttonText)) {
                             String brand = (String) currentTable.getValueAt(currentRow, 1);
-                            handleRental(powerBankId, brand);
+                            handleRental(currentTable, powerBankId, brand);
                         } else if ("归还".equals(buttonText)) {
-                            handleReturn(powerBankId);
+                            handleReturn(currentTable, powerBankId);
                         }
                     } catch (Exception ex) {
                         System.err.println("处理按钮点击时出错:");
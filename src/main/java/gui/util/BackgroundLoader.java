@@ -0,0 +1,229 @@
+package gui.util;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 后台数据加载器
+ * Background Loader
+ * 在独立线程池中执行数据库查询，结果回到事件分发线程（EDT）后一次性更新界面。
+ * 同一窗口内相同key的新请求会使旧请求作废（旧结果被丢弃），加载期间窗口显示加载提示。
+ * 写操作（租借、归还、保存等）使用 write：不会被作废，在单独的写线程上依次执行。
+ * 所有方法须在EDT上调用。
+ */
+public class BackgroundLoader {
+    private static final int THREADS = Integer.getInteger("ui.loaderThreads", 2); // 后台加载线程数
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread thread = new Thread(r, "ui-loader-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 写操作串行执行，同一订单的两次归还不会并发进入事务
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ui-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 每个 (窗口, key) 当前有效的请求，仅在EDT上访问
+    private static final Map<List<Object>, Request<?>> LATEST = new HashMap<>();
+    // 每个根面板正在进行的请求数，仅在EDT上访问
+    private static final Map<JRootPane, Integer> ACTIVE = new HashMap<>();
+    private static final String SAVED_GLASS_PANE = "BackgroundLoader.savedGlassPane";
+
+    /**
+     * 后台任务（在后台线程执行，不得访问Swing组件）
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * 在后台执行任务
+     * @param owner 发起请求的组件（用于定位窗口和显示加载提示）
+     * @param key 请求标识，同一窗口内相同key的旧请求会被作废
+     * @param task 后台任务
+     * @param onSuccess 成功回调（EDT）
+     * @param onError 失败回调（EDT）
+     */
+    public static <T> void load(Component owner, String key, Task<T> task,
+                                Consumer<T> onSuccess, Consumer<Exception> onError) {
+        List<Object> requestKey = List.of(SwingUtilities.getWindowAncestor(owner) != null
+                ? SwingUtilities.getWindowAncestor(owner) : owner, key);
+        Request<T> request = new Request<>(owner, requestKey, task, onSuccess, onError);
+        Request<?> previous = LATEST.put(requestKey, request);
+        if (previous != null) {
+            // 不中断正在执行的JDBC调用，只丢弃其结果
+            previous.cancel(false);
+        }
+        showIndicator(owner);
+        EXECUTOR.execute(request);
+    }
+
+    /**
+     * 在后台执行写操作
+     * 写操作不会被后续请求作废，执行期间禁用触发组件，防止重复提交
+     * @param trigger 触发写操作的组件（按钮或表格），完成前保持禁用
+     * @param task 后台任务
+     * @param onSuccess 成功回调（EDT）
+     * @param onError 失败回调（EDT）
+     */
+    public static <T> void write(Component trigger, Task<T> task,
+                                 Consumer<T> onSuccess, Consumer<Exception> onError) {
+        if (!trigger.isEnabled()) {
+            return; // 上一次提交尚未完成
+        }
+        trigger.setEnabled(false);
+        showIndicator(trigger);
+        WRITER.execute(new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                try {
+                    return task.call();
+                } finally {
+                    DBHelper.closeConnection();
+                }
+            }
+
+            @Override
+            protected void done() {
+                hideIndicator(trigger);
+                trigger.setEnabled(true);
+                try {
+                    onSuccess.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    LogUtil.error("后台写操作失败", cause);
+                    onError.accept(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                }
+            }
+        });
+    }
+
+    private static final class Request<T> extends SwingWorker<T, Void> {
+        private final Component owner;
+        private final List<Object> key;
+        private final Task<T> task;
+        private final Consumer<T> onSuccess;
+        private final Consumer<Exception> onError;
+
+        Request(Component owner, List<Object> key, Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+            this.owner = owner;
+            this.key = key;
+            this.task = task;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            if (isCancelled()) {
+                return null;
+            }
+            try {
+                return task.call();
+            } finally {
+                // 加载线程长期存活，任务结束后归还线程绑定的数据库连接
+                DBHelper.closeConnection();
+            }
+        }
+
+        @Override
+        protected void done() {
+            hideIndicator(owner);
+            if (LATEST.get(key) != this) {
+                return; // 已被新请求取代
+            }
+            LATEST.remove(key);
+            try {
+                onSuccess.accept(get());
+            } catch (CancellationException e) {
+                // 已取消，忽略结果
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                LogUtil.error("后台加载失败 - " + key.get(1), cause);
+                onError.accept(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            }
+        }
+    }
+
+    private static void showIndicator(Component owner) {
+        JRootPane rootPane = SwingUtilities.getRootPane(owner);
+        if (rootPane == null) {
+            return;
+        }
+        int active = ACTIVE.merge(rootPane, 1, Integer::sum);
+        if (active == 1) {
+            rootPane.putClientProperty(SAVED_GLASS_PANE, rootPane.getGlassPane());
+            rootPane.setGlassPane(new LoadingGlassPane());
+            rootPane.getGlassPane().setVisible(true);
+        }
+    }
+
+    private static void hideIndicator(Component owner) {
+        JRootPane rootPane = SwingUtilities.getRootPane(owner);
+        if (rootPane == null || !ACTIVE.containsKey(rootPane)) {
+            return;
+        }
+        int active = ACTIVE.merge(rootPane, -1, Integer::sum);
+        if (active <= 0) {
+            ACTIVE.remove(rootPane);
+            Component saved = (Component) rootPane.getClientProperty(SAVED_GLASS_PANE);
+            rootPane.putClientProperty(SAVED_GLASS_PANE, null);
+            rootPane.getGlassPane().setVisible(false);
+            if (saved != null) {
+                rootPane.setGlassPane(saved);
+            }
+        }
+    }
+
+    /**
+     * 加载提示：在窗口右下角显示“加载中...”，不拦截用户操作
+     */
+    private static final class LoadingGlassPane extends JComponent {
+        LoadingGlassPane() {
+            setOpaque(false);
+        }
+
+        @Override
+        public boolean contains(int x, int y) {
+            return false; // 鼠标事件穿透到下层组件
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+            String text = "加载中...";
+            FontMetrics fm = g2.getFontMetrics();
+            int width = fm.stringWidth(text) + 16;
+            int height = fm.getHeight() + 8;
+            int x = getWidth() - width - 12;
+            int y = getHeight() - height - 12;
+            g2.setColor(new Color(0, 0, 0, 150));
+            g2.fillRoundRect(x, y, width, height, 8, 8);
+            g2.setColor(Color.WHITE);
+            g2.drawString(text, x + 8, y + 4 + fm.getAscent());
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package gui.util;
+
+import util.DBHelper;
+import util.LogUtil;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按需加载的表格模型
+ * Lazy Table Model
+ * 只保存行数和最近访问的若干数据块（每块 ui.tableBlockSize 行，最多缓存 ui.tableCachedBlocks 块，LRU淘汰）。
+ * 表格绘制时访问到未加载的行，才在后台加载所在的块，并顺带预取前后 ui.tablePrefetchBlocks 块；
+ * 加载完成后只刷新该块的行。快速滚动时优先加载最新请求的块，积压过多的旧请求直接丢弃。
+ * 除后台加载外，所有方法须在EDT上调用。
+ */
+public class LazyTableModel extends AbstractTableModel {
+    private static final int BLOCK_SIZE = Integer.getInteger("ui.tableBlockSize", 200);       // 每块行数
+    private static final int CACHED_BLOCKS = Integer.getInteger("ui.tableCachedBlocks", 32);  // 缓存的块数
+    private static final int PREFETCH_BLOCKS = Integer.getInteger("ui.tablePrefetchBlocks", 1); // 前后预取的块数
+    private static final String LOADING = "加载中…";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "table-block-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 行数据来源（在后台线程调用）
+     */
+    public interface RowSource {
+        /**
+         * 加载一块连续的行
+         * @param offset 起始行号
+         * @param limit 行数
+         * @param previousRow 上一行（offset-1）的数据，未加载时为 null；可用于按主键续读，避免大偏移量扫描
+         * @return 行数据
+         */
+        List<Object[]> load(int offset, int limit, Object[] previousRow) throws Exception;
+    }
+
+    private final String[] columnNames;
+    private final int loadingColumn; // 未加载的行在此列显示加载提示
+    private RowSource source;
+    private int rowCount;
+    private int generation;          // 每次更换数据来源时递增，旧的加载结果被丢弃
+
+    // 块号 -> 行数据，按访问顺序淘汰，仅在EDT上访问
+    private final LinkedHashMap<Integer, List<Object[]>> blocks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    // 已请求但未完成的块（后台线程丢弃请求时也会移除）
+    private final Set<Integer> requested = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedDeque<Request> pending = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * @param columnNames 列名
+     * @param loadingColumn 显示加载提示的列
+     */
+    public LazyTableModel(String[] columnNames, int loadingColumn) {
+        this.columnNames = columnNames;
+        this.loadingColumn = loadingColumn;
+    }
+
+    /**
+     * 更换数据来源（丢弃已缓存的块，表格重新按需加载）
+     * @param source 数据来源
+     * @param rowCount 总行数
+     */
+    public void setSource(RowSource source, int rowCount) {
+        this.source = source;
+        this.rowCount = rowCount;
+        generation++;
+        blocks.clear();
+        requested.clear();
+        pending.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * 使用内存中的行作为数据来源（筛选和搜索结果）
+     * @param rows 行数据
+     */
+    public void setRows(List<Object[]> rows) {
+        setSource((offset, limit, previousRow) -> rows.subList(offset, Math.min(rows.size(), offset + limit)), rows.size());
+    }
+
+    /**
+     * 获取已加载的整行数据（不触发加载）
+     * @param row 行号
+     * @return 行数据，尚未加载时为 null
+     */
+    public Object[] getLoadedRow(int row) {
+        int block = row / BLOCK_SIZE;
+        List<Object[]> rows = blocks.get(block);
+        int index = row - block * BLOCK_SIZE;
+        return rows != null && index < rows.size() ? rows.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int block = row / BLOCK_SIZE;
+        List<Object[]> rows = blocks.get(block);
+        if (rows == null) {
+            requestBlock(block);
+            return column == loadingColumn ? LOADING : null;
+        }
+        int index = row - block * BLOCK_SIZE;
+        return index < rows.size() ? rows.get(index)[column] : null;
+    }
+
+    // 请求加载块及其前后的预取块；目标块最后入队，后台最先处理
+    private void requestBlock(int block) {
+        int lastBlock = (rowCount - 1) / BLOCK_SIZE;
+        for (int distance = PREFETCH_BLOCKS; distance >= 1; distance--) {
+            enqueue(block + distance, lastBlock);
+            enqueue(block - distance, lastBlock);
+        }
+        enqueue(block, lastBlock);
+        // 积压过多时丢弃最早的请求，再次访问时会重新请求
+        while (pending.size() > CACHED_BLOCKS) {
+            Request dropped = pending.pollFirst();
+            if (dropped != null) {
+                requested.remove(dropped.block);
+            }
+        }
+        if (draining.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::drain);
+        }
+    }
+
+    private void enqueue(int block, int lastBlock) {
+        if (block < 0 || block > lastBlock || blocks.containsKey(block) || !requested.add(block)) {
+            return;
+        }
+        int start = block * BLOCK_SIZE;
+        List<Object[]> previous = blocks.get(block - 1);
+        Object[] previousRow = previous != null && previous.size() == BLOCK_SIZE ? previous.get(BLOCK_SIZE - 1) : null;
+        pending.addLast(new Request(generation, source, block, start, Math.min(BLOCK_SIZE, rowCount - start), previousRow));
+    }
+
+    // 后台线程：按后进先出处理请求，直到队列为空
+    private void drain() {
+        try {
+            while (true) {
+                Request request = pending.pollLast();
+                if (request == null) {
+                    draining.set(false);
+                    // 置位后再检查一次，避免与新入队的请求错过
+                    if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                load(request);
+            }
+        } finally {
+            DBHelper.closeConnection();
+        }
+    }
+
+    private void load(Request request) {
+        try {
+            List<Object[]> rows = new ArrayList<>(request.source.load(request.offset, request.limit, request.previousRow));
+            SwingUtilities.invokeLater(() -> {
+                if (request.generation != generation) {
+                    return;
+                }
+                requested.remove(request.block);
+                blocks.put(request.block, rows);
+                fireTableRowsUpdated(request.offset, Math.min(rowCount, request.offset + request.limit) - 1);
+            });
+        } catch (Exception e) {
+            LogUtil.error("加载表格数据失败 - 起始行: " + request.offset, e);
+            SwingUtilities.invokeLater(() -> {
+                if (request.generation == generation) {
+                    requested.remove(request.block); // 允许再次访问时重试
+                }
+            });
+        }
+    }
+
+    private static final class Request {
+        final int generation;
+        final RowSource source;
+        final int block;
+        final int offset;
+        final int limit;
+        final Object[] previousRow;
+
+        Request(int generation, RowSource source, int block, int offset, int limit, Object[] previousRow) {
+            this.generation = generation;
+            this.source = source;
+            this.block = block;
+            this.offset = offset;
+            this.limit = limit;
+            this.previousRow = previousRow;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package gui.util;
+
+import User.LoginExecutor;
+import User.RememberMeToken;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 本地保存的登录信息
+ * Remembered Login
+ * 读写 user.info 文件：用户名、记住登录令牌、是否记住密码、是否自动登录（每项一行）。
+ * 文件中不再保存明文密码；旧版本文件第二行的明文密码仍可读取，下次登录成功后改写为令牌。
+ */
+public class RememberedLogin {
+    private static final String USER_INFO_FILE = "user.info";  // 用户信息存储文件
+
+    private final String username;
+    private final String secret;      // 令牌，或旧版本文件中的明文密码
+    private final boolean remember;
+    private final boolean autoLogin;
+
+    private RememberedLogin(String username, String secret, boolean remember, boolean autoLogin) {
+        this.username = username;
+        this.secret = secret;
+        this.remember = remember;
+        this.autoLogin = autoLogin;
+    }
+
+    public String getUsername() { return username; }
+    public boolean isRemember() { return remember; }
+    public boolean isAutoLogin() { return autoLogin; }
+
+    /**
+     * 记住登录令牌
+     * @return 令牌，未保存令牌时返回 null
+     */
+    public String getToken() {
+        return RememberMeToken.isToken(secret) ? secret : null;
+    }
+
+    /**
+     * 旧版本文件中保存的明文密码
+     * @return 明文密码，没有时返回 null
+     */
+    public String getLegacyPassword() {
+        return secret != null && !secret.isEmpty() && !RememberMeToken.isToken(secret) ? secret : null;
+    }
+
+    /**
+     * 读取本地登录信息
+     * @return 登录信息，文件不存在或读取失败时返回 null
+     */
+    public static RememberedLogin load() {
+        File file = new File(USER_INFO_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String username = reader.readLine();
+            String secret = reader.readLine();
+            boolean remember = Boolean.parseBoolean(reader.readLine());
+            boolean autoLogin = Boolean.parseBoolean(reader.readLine());
+            return new RememberedLogin(username != null ? username : "", secret, remember, autoLogin);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 保存本地登录信息
+     * @param username 用户名
+     * @param token 记住登录令牌（不记住密码时为 null）
+     * @param remember 是否记住密码
+     * @param autoLogin 是否自动登录
+     */
+    public static void save(String username, String token, boolean remember, boolean autoLogin) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(USER_INFO_FILE))) {
+            writer.println(username);
+            writer.println(remember && token != null ? token : "");
+            writer.println(remember);
+            writer.println(autoLogin);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 退出登录：保留用户名，清除并撤销令牌，取消记住密码和自动登录
+     */
+    public static void forget() {
+        RememberedLogin saved = load();
+        if (saved == null) {
+            return;
+        }
+        save(saved.username, null, false, false);
+        String token = saved.getToken();
+        if (token != null) {
+            // 撤销令牌需要访问数据库，不在事件分发线程上执行
+            LoginExecutor.submit(() -> {
+                RememberMeToken.revoke(token);
+                return null;
+            });
+        }
+    }
+}
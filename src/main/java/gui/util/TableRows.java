@@ -0,0 +1,54 @@
+package gui.util;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * 表格行批量更新工具
+ * Table Rows
+ * DefaultTableModel.addRow 每行触发一次事件，批量替换或追加时只触发一次事件，避免逐行重绘。
+ */
+public class TableRows {
+
+    /**
+     * 替换表格全部行（触发一次数据变更事件）
+     * @param model 表格模型
+     * @param rows 新的行数据
+     */
+    @SuppressWarnings("rawtypes") // getDataVector() 的返回类型本身是 Vector<Vector>
+    public static void setRows(DefaultTableModel model, List<Object[]> rows) {
+        Vector<Vector> data = model.getDataVector();
+        data.clear();
+        for (Object[] row : rows) {
+            data.add(toVector(row));
+        }
+        model.fireTableDataChanged();
+    }
+
+    /**
+     * 在表格末尾追加行（触发一次插入事件）
+     * @param model 表格模型
+     * @param rows 追加的行数据
+     */
+    @SuppressWarnings("rawtypes") // getDataVector() 的返回类型本身是 Vector<Vector>
+    public static void addRows(DefaultTableModel model, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Vector<Vector> data = model.getDataVector();
+        int first = data.size();
+        for (Object[] row : rows) {
+            data.add(toVector(row));
+        }
+        model.fireTableRowsInserted(first, data.size() - 1);
+    }
+
+    private static Vector<Object> toVector(Object[] row) {
+        Vector<Object> vector = new Vector<>(row.length);
+        for (Object value : row) {
+            vector.add(value);
+        }
+        return vector;
+    }
+}
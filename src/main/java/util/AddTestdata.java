@@ -2,56 +2,103 @@ package util;
 
 import util.DBConfig;
 import util.DBHelper;
+import User.PasswordHasher;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Random;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.sql.Timestamp;
-import java.util.stream.IntStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 测试数据生成
+ * Test Data Seeder
+ * 用户按批插入并通过 DBHelper.executeInsertReturningKeys 取回自增主键，订单再用 BulkLoader 多行批量写入到这些主键下；
+ * 每个用户的订单数服从长尾分布。用户按数量切分成任务，由 seed.threads 个写入线程并行执行，
+ * 每个线程使用自己绑定的连接；写入期间定时打印进度和速率。
+ * 数据量由 seed.users / seed.powerBanks 配置，批量大小由 seed.batchRows / seed.batchStatements 配置。
+ */
 public class AddTestdata {
     private static final String[] BRANDS = {"美团", "饿了么", "怪兽", "街电"};
-    private static final double[] PRICES = {1.5, 2.5, 2.0, 1.0};
+    private static final long[] PRICES = {150, 250, 200, 100}; // 每小时租金（分）
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
 
+    private static final int USER_COUNT = Integer.getInteger("seed.users", 1000);             // 生成的用户数
+    private static final int POWER_BANK_COUNT = Integer.getInteger("seed.powerBanks", 1000);  // 生成的移动电源数
+    private static final int THREADS = Integer.getInteger("seed.threads",
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), DBConfig.POOL_MAX_SIZE - 1))); // 并行写入线程数
+    private static final int ROWS_PER_STATEMENT = Math.max(1, Integer.getInteger("seed.batchRows", 500)); // 每条 INSERT 的行数（至少1）
+    private static final int STATEMENTS_PER_COMMIT = Integer.getInteger("seed.batchStatements", 20); // 每次提交的语句数
+    private static final int USERS_PER_TASK = 10_000;   // 每个写入任务生成的用户数
+    private static final int PROGRESS_INTERVAL = 5;     // 进度打印间隔（秒）
+    // 批量生成的用户共用一个密码哈希，避免为每个用户计算一次 PBKDF2
+    private static final String DEFAULT_PASSWORD = "123456";
+
+    private static final double INACTIVE_USER_RATIO = 0.2; // 没有订单的用户比例
+    private static final double MIN_ORDERS = 2;           // 有订单用户的最少订单数
+    private static final double ORDER_COUNT_ALPHA = 1.6;  // 订单数分布的帕累托指数，越小长尾越重
+    private static final int MAX_ORDERS_PER_USER = 500;
+
+    private static final String INSERT_USER_SQL = "INSERT INTO User (username, phone, status, password, balance, " +
+            "expiresTime, avatar, is_vip, is_svip) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String[] ORDER_COLUMNS = {"user_id", "powerbank_id", "brand", "rental_duration_hours",
+            "total_cost", "order_code", "rental_start_time", "deposit"};
+
+    private static final LongAdder usersWritten = new LongAdder();
+    private static final LongAdder ordersWritten = new LongAdder();
+
     public static void main(String[] args) {
         try {
-            addPowerBankTestData(1000);
+            addPowerBankTestData(POWER_BANK_COUNT);
             addAdminUser();
-            addUserAndOrderTestData(1000);
+            addUserAndOrderTestData(USER_COUNT);
             System.out.println("Test data added successfully.");
         } catch (SQLException e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            DBHelper.closeConnection();
         }
     }
 
     private static void addPowerBankTestData(int count) throws SQLException {
         Random random = new Random();
-        String sql = "INSERT INTO PowerBank (status, battery_level, rental_price_per_hour, brand) VALUES (?, ?, ?, ?)";
+        String[] columns = {"status", "battery_level", "rental_price_per_hour", "brand"};
 
-        for (int i = 0; i < count; i++) {
-            int batteryLevel = random.nextInt(51) + 50;
-            int brandIndex = random.nextInt(BRANDS.length);
-            String brand = BRANDS[brandIndex];
-            double rentalPrice = PRICES[brandIndex];
-
-            DBHelper.executeUpdate(sql, "Available", batteryLevel, rentalPrice, brand);
+        try (BulkLoader loader = new BulkLoader(DBHelper.getConnection(), "PowerBank", columns,
+                ROWS_PER_STATEMENT, STATEMENTS_PER_COMMIT)) {
+            for (int i = 0; i < count; i++) {
+                int batteryLevel = random.nextInt(51) + 50;
+                int brandIndex = random.nextInt(BRANDS.length);
+                loader.add("Available", batteryLevel, Money.toDecimal(PRICES[brandIndex]), BRANDS[brandIndex]);
+            }
+            loader.flush();
         }
+        System.out.println("Power banks added: " + count);
     }
 
     private static void addAdminUser() throws SQLException {
         String sql = "INSERT INTO User (username, phone, status, password, balance, " +
                     "expiresTime, avatar, is_vip, is_svip) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        DBHelper.executeUpdate(sql, 
-            "root",                    // username 
+        DBHelper.executeUpdate(sql,
+            "root",                    // username
             "13798234029",            // phone
             "Admin",                   // status
-            "251605",                 // password
-            0.0,                      // balance
+            PasswordHasher.hash("251605"), // password
+            Money.toDecimal(0),       // balance
             null,                     // expiresTime
             "src\\source\\admin.png", // avatar
             false,                    // is_vip
@@ -61,16 +108,14 @@ public class AddTestdata {
     }
 
     private static void addUserAndOrderTestData(int count) throws SQLException {
-        Random random = new Random();
-
         String getPowerBankSql = "SELECT id, brand, rental_price_per_hour FROM PowerBank";
-        var rs = DBHelper.executeQuery(getPowerBankSql);
+        ResultSet rs = DBHelper.executeQuery(getPowerBankSql);
         List<PowerBankInfo> powerBanks = new ArrayList<>();
         while (rs.next()) {
             powerBanks.add(new PowerBankInfo(
                 rs.getInt("id"),
                 rs.getString("brand"),
-                rs.getDouble("rental_price_per_hour")
+                Money.get(rs, "rental_price_per_hour")
             ));
         }
         DBHelper.closeResources(rs, null);
@@ -80,72 +125,124 @@ public class AddTestdata {
             return;
         }
 
-        IntStream.range(0, count).forEach(i -> {
-            try {
-                String username = generateRandomUsername(random);
-                String phone = generateRandomPhoneNumber(random);
-                String status = random.nextInt(3) == 0 ? "Common" : random.nextInt(2) == 0 ? "VIP" : "SVIP";
-                String password = String.valueOf(random.nextInt(10000));
-                double balance = random.nextDouble() * 100;
-
-                LocalDateTime expiresTime = null;
-                boolean isVip = false;
-                boolean isSvip = false;
-
-                if ("VIP".equals(status)) {
-                    isVip = true;
-                    expiresTime = LocalDateTime.now().plusMonths(1);
-                } else if ("SVIP".equals(status)) {
-                    isSvip = true;
-                    expiresTime = LocalDateTime.now().plusMonths(3);
+        SeedContext context = new SeedContext(powerBanks, PasswordHasher.hash(DEFAULT_PASSWORD));
+        for (String status : new String[]{"Common", "VIP", "SVIP"}) {
+            context.deposits.put(status, Money.toDecimal(Transaction.calculateDeposit(status)));
+        }
+
+        ExecutorService writers = Executors.newFixedThreadPool(THREADS);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "seed-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startedAt = System.nanoTime();
+        reporter.scheduleAtFixedRate(() -> printProgress(count, startedAt), PROGRESS_INTERVAL, PROGRESS_INTERVAL, TimeUnit.SECONDS);
+
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int from = 0; from < count; from += USERS_PER_TASK) {
+                int taskUsers = Math.min(USERS_PER_TASK, count - from);
+                tasks.add(writers.submit(() -> {
+                    try {
+                        writeUsers(taskUsers, context);
+                    } finally {
+                        DBHelper.closeConnection();
+                    }
+                    return null;
+                }));
+            }
+            // 任一写入任务失败即停止其余任务（finally 中 shutdownNow），并把首个异常抛给调用方
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    System.err.println("Error adding users: " + cause.getMessage());
+                    throw cause instanceof SQLException ? (SQLException) cause : new SQLException("Error adding users", cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while adding users", e);
                 }
+            }
+        } finally {
+            writers.shutdownNow();
+            reporter.shutdownNow();
+        }
+        printProgress(count, startedAt);
+    }
 
-                String insertUserSql = "INSERT INTO User (username, phone, status, password, balance, " +
-                                     "expiresTime, avatar, is_vip, is_svip) " +
-                                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                int userId = DBHelper.executeUpdate(insertUserSql, 
-                    username, 
-                    phone, 
-                    status, 
-                    password, 
-                    balance,
-                    expiresTime != null ? Timestamp.valueOf(expiresTime) : null, 
+    // 写入一批用户及其订单：用户按批插入并取回自增主键，订单再按主键写入（订单外键依赖用户）
+    private static void writeUsers(int count, SeedContext context) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp vipExpires = Timestamp.valueOf(now.plusMonths(1));
+        Timestamp svipExpires = Timestamp.valueOf(now.plusMonths(3));
+
+        List<Object[]> userRows = new ArrayList<>(ROWS_PER_STATEMENT);
+        String[] statuses = new String[ROWS_PER_STATEMENT];
+        for (int written = 0; written < count; written += userRows.size()) {
+            userRows.clear();
+            int batch = Math.min(ROWS_PER_STATEMENT, count - written);
+            for (int i = 0; i < batch; i++) {
+                String status = random.nextInt(3) == 0 ? "Common" : random.nextInt(2) == 0 ? "VIP" : "SVIP";
+                statuses[i] = status;
+                userRows.add(new Object[]{
+                    generateRandomUsername(random) + Long.toString(random.nextLong() >>> 1, 36), // 追加随机后缀避免用户名重复
+                    generateRandomPhoneNumber(random),
+                    status,
+                    context.passwordHash,
+                    Money.toDecimal(random.nextInt(10000)),
+                    "VIP".equals(status) ? vipExpires : "SVIP".equals(status) ? svipExpires : null,
                     "src\\source\\default.png",
-                    isVip,
-                    isSvip
-                );
-
-                int numberOfOrders = random.nextInt(4) + 2;
-                for (int j = 0; j < numberOfOrders; j++) {
-                    PowerBankInfo powerBank = powerBanks.get(random.nextInt(powerBanks.size()));
-                    int rentalDurationHours = random.nextInt(23) + 1;
-                    double totalCost = rentalDurationHours * powerBank.rentalPrice;
-                    String orderCode = generateOrderCode(userId);
-                    String rentalStartTime = generateRandomRentalStartTime(random);
-                    
-                    double deposit = ("VIP".equals(status) || "SVIP".equals(status)) ? 0 : 99.0;
-
-                    String insertOrderSql = "INSERT INTO `Order` (user_id, powerbank_id, brand, " +
-                                         "rental_duration_hours, total_cost, order_code, " +
-                                         "rental_start_time, deposit) " +
-                                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                    DBHelper.executeUpdate(insertOrderSql, 
-                        userId, 
-                        powerBank.id,
-                        powerBank.brand,
-                        rentalDurationHours,
-                        totalCost,
-                        orderCode,
-                        rentalStartTime,
-                        deposit
-                    );
-                }
+                    "VIP".equals(status),
+                    "SVIP".equals(status)
+                });
+            }
+            long[] userIds = DBHelper.executeInsertReturningKeys(INSERT_USER_SQL, userRows);
+            usersWritten.add(userIds.length);
 
-                System.out.println("Added user: " + username + " with status: " + status);
-            } catch (SQLException e) {
-                System.err.println("Error adding user: " + e.getMessage());
+            try (BulkLoader orders = new BulkLoader(DBHelper.getConnection(), "`Order`", ORDER_COLUMNS,
+                    ROWS_PER_STATEMENT, STATEMENTS_PER_COMMIT)) {
+                for (int i = 0; i < userIds.length; i++) {
+                    BigDecimal deposit = context.deposits.get(statuses[i]);
+                    int numberOfOrders = randomOrderCount(random);
+                    for (int j = 0; j < numberOfOrders; j++) {
+                        PowerBankInfo powerBank = context.powerBanks.get(random.nextInt(context.powerBanks.size()));
+                        int rentalDurationHours = random.nextInt(23) + 1;
+                        long totalCost = Transaction.calculateRentalCost(rentalDurationHours, powerBank.rentalPrice);
+                        orders.add(userIds[i],
+                            powerBank.id,
+                            powerBank.brand,
+                            rentalDurationHours,
+                            Money.toDecimal(totalCost),
+                            OrderCodeGenerator.next(),
+                            generateRandomRentalStartTime(random),
+                            deposit
+                        );
+                    }
+                    ordersWritten.add(numberOfOrders);
+                }
+                orders.flush();
             }
-        });
+        }
+    }
+
+    // 每个用户的订单数：部分用户没有订单，其余服从帕累托分布（多数用户几单，少数重度用户上百单）
+    private static int randomOrderCount(Random random) {
+        if (random.nextDouble() < INACTIVE_USER_RATIO) {
+            return 0;
+        }
+        double orders = MIN_ORDERS / Math.pow(1 - random.nextDouble(), 1 / ORDER_COUNT_ALPHA);
+        return (int) Math.min(MAX_ORDERS_PER_USER, orders);
+    }
+
+    private static void printProgress(int totalUsers, long startedAt) {
+        long users = usersWritten.sum();
+        long orders = ordersWritten.sum();
+        double seconds = Math.max(1e-3, (System.nanoTime() - startedAt) / 1e9);
+        System.out.printf("Progress: users %d/%d, orders %d, %.1fs, %.0f rows/s%n",
+                users, totalUsers, orders, seconds, (users + orders) / seconds);
     }
 
     private static String generateRandomUsername(Random random) {
@@ -164,27 +261,30 @@ public class AddTestdata {
         return sb.toString();
     }
 
-    public static String generateOrderCode(int userId) {
-        LocalDateTime now = LocalDateTime.now();
-        String timestamp = now.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
-        String uniqueId = String.format("%05d", new Random().nextInt(100000));
-        return String.format("ORD%s%04d%s", timestamp, userId % 10000, uniqueId);
+    private static Timestamp generateRandomRentalStartTime(Random random) {
+        long endMillis = System.currentTimeMillis();
+        long startMillis = endMillis - 365L * 24 * 60 * 60 * 1000;
+        return new Timestamp(startMillis + (long) (random.nextDouble() * (endMillis - startMillis)));
     }
 
-    private static String generateRandomRentalStartTime(Random random) {
-        long startMillis = System.currentTimeMillis() - 365L * 24 * 60 * 60 * 1000;
-        long endMillis = System.currentTimeMillis();
-        long randomMillisSinceEpoch = startMillis + (long) (random.nextDouble() * (endMillis - startMillis));
+    // 写入线程共享的只读数据
+    private static class SeedContext {
+        final List<PowerBankInfo> powerBanks;
+        final String passwordHash;
+        final Map<String, BigDecimal> deposits = new HashMap<>(); // 用户身份 -> 押金
 
-        return new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(randomMillisSinceEpoch));
+        SeedContext(List<PowerBankInfo> powerBanks, String passwordHash) {
+            this.powerBanks = powerBanks;
+            this.passwordHash = passwordHash;
+        }
     }
 
     private static class PowerBankInfo {
         final int id;
         final String brand;
-        final double rentalPrice;
+        final long rentalPrice;
 
-        PowerBankInfo(int id, String brand, double rentalPrice) {
+        PowerBankInfo(int id, String brand, long rentalPrice) {
             this.id = id;
             this.brand = brand;
             this.rentalPrice = rentalPrice;
@@ -0,0 +1,240 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * 异步日志处理器
+ * Async Log Handler
+ * 业务线程只把日志记录放入有界无锁环形缓冲区（多生产者单消费者），由后台写线程批量写入
+ * 目标处理器（控制台、文件），每批结束后统一刷新一次。缓冲区满时按溢出策略处理。
+ * 缓冲区为空时写线程无限期休眠，由使缓冲区变为非空的生产者唤醒，空闲时不占用CPU。
+ */
+public class AsyncLogHandler extends Handler {
+    private static final long FULL_PARK_NANOS = 50_000L;      // 缓冲区满时生产者的等待时间（也用于等待生产者写完已占位的槽位）
+
+    /**
+     * 缓冲区满时的处理策略
+     * BLOCK: 等待直到有空位
+     * DROP_DEBUG: 丢弃INFO以下（调试）日志，其余等待
+     * SAMPLE: 每N条溢出记录保留1条（等待写入），其余丢弃；WARNING及以上始终保留
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_DEBUG, SAMPLE
+    }
+
+    private final Handler[] targets;
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int mask;
+    private final int batchSize;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+
+    private final AtomicLong tail = new AtomicLong();  // 下一个待写入的位置（生产者竞争）
+    private volatile long head;                        // 下一个待读取的位置（仅写线程修改）
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Thread writer;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * @param capacity 缓冲区容量（向上取整为2的幂）
+     * @param batchSize 每批最多写入的记录数
+     * @param policy 溢出策略
+     * @param sampleRate SAMPLE策略下每多少条溢出记录保留一条
+     * @param targets 实际写入的处理器
+     */
+    public AsyncLogHandler(int capacity, int batchSize, OverflowPolicy policy, int sampleRate, Handler... targets) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.batchSize = Math.max(1, batchSize);
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.targets = targets;
+        setLevel(Level.ALL);
+
+        writer = new Thread(this::drainLoop, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || !isLoggable(record)) {
+            return;
+        }
+        if (closed.get()) {
+            // 关闭后直接同步写入，避免丢失关闭阶段的日志
+            writeDirect(record);
+            return;
+        }
+        if (offer(record)) {
+            enqueued.increment();
+            return;
+        }
+        overflowed.increment();
+        if (shouldDrop(record)) {
+            dropped.increment();
+            return;
+        }
+        while (!offer(record)) {
+            if (closed.get()) {
+                writeDirect(record);
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        enqueued.increment();
+    }
+
+    private boolean shouldDrop(LogRecord record) {
+        int level = record.getLevel().intValue();
+        switch (policy) {
+            case DROP_DEBUG:
+                return level < Level.INFO.intValue();
+            case SAMPLE:
+                return level < Level.WARNING.intValue() && overflowed.sum() % sampleRate != 0;
+            default:
+                return false;
+        }
+    }
+
+    // 多生产者：先CAS占位，再写入槽位；写线程读到null说明生产者尚未写完，下次再读
+    private boolean offer(LogRecord record) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.set((int) (t & mask), record);
+        // 写线程已读完此前的所有记录，可能正在休眠：唤醒它（先于 park 的 unpark 也不会丢失）
+        if (head == t) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    // 单消费者
+    private LogRecord poll() {
+        long h = head;
+        int index = (int) (h & mask);
+        LogRecord record = slots.get(index);
+        if (record == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = h + 1;
+        return record;
+    }
+
+    private void drainLoop() {
+        while (!closed.get()) {
+            if (drainBatch() == 0) {
+                if (head == tail.get()) {
+                    // 缓冲区为空：休眠到生产者写入下一条记录（或关闭、刷新）时唤醒
+                    LockSupport.park(this);
+                } else {
+                    // 已有生产者占位但尚未写入槽位，稍后再读
+                    LockSupport.parkNanos(this, FULL_PARK_NANOS);
+                }
+            }
+        }
+        // 关闭时写完剩余记录（包括已占位但尚未写入槽位的记录）
+        while (head < tail.get()) {
+            if (drainBatch() == 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        LogRecord record;
+        while (count < batchSize && (record = poll()) != null) {
+            writeDirect(record);
+            count++;
+        }
+        if (count > 0) {
+            written.add(count);
+            batches.increment();
+            flushTargets();
+        }
+        return count;
+    }
+
+    private void writeDirect(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("写入日志失败", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void flushTargets() {
+        for (Handler target : targets) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // 等待当前已入队的记录写完
+        long target = tail.get();
+        while (head < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        flushTargets();
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    // 统计信息
+    public long getEnqueued() { return enqueued.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public long getWritten() { return written.sum(); }
+    public long getQueued() { return tail.get() - head; }
+    public int getCapacity() { return slots.length(); }
+
+    /**
+     * 统计摘要
+     * @return 统计字符串
+     */
+    public String getStats() {
+        long batchCount = batches.sum();
+        return String.format("异步日志[入队=%d, 排队=%d, 已写=%d, 丢弃=%d, 溢出=%d, 平均批量=%.1f, 策略=%s]",
+                getEnqueued(), getQueued(), getWritten(), getDropped(), overflowed.sum(),
+                batchCount == 0 ? 0 : getWritten() / (double) batchCount, policy);
+    }
+}
@@ -1,7 +1,13 @@
 package util;
 
+import Commodity.Commodity.Status;
+import Commodity.PowerBankInventory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.BitSet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -11,9 +17,33 @@ public class BatteryMonitor {
     private static final int BATTERY_DECREASE_RATE = 1; // 每次减少的电量
     private static final int BATTERY_INCREASE_RATE = 1; // 每次增加的电量
     private static final int BATTERY_FULL_THRESHOLD = 30; // 电量达到此值时视为充满
+    private static final int SWEEP_CHUNK_SIZE = Integer.getInteger("battery.sweepChunkSize", 5000); // 每个事务处理的ID区间大小
+    private static final int INVENTORY_RESYNC_SWEEPS = Integer.getInteger("inventory.resyncSweeps", 12); // 每隔多少次巡检从数据库全量重建库存索引
+
+    private static final String RANGE_SQL =
+            "SELECT MIN(id), MAX(id) FROM powerbank WHERE status IN ('InUse', 'Unavailable')";
+    private static final String LOCK_SQL =
+            "SELECT id FROM powerbank WHERE status IN ('InUse', 'Unavailable') AND id BETWEEN ? AND ? FOR UPDATE";
+    private static final String STATE_SQL =
+            "SELECT id, status, battery_level FROM powerbank WHERE id BETWEEN ? AND ?";
+    private static final String DEPLETE_SQL =
+            "UPDATE powerbank SET battery_level = 0, status = 'Unavailable' " +
+            "WHERE status = 'InUse' AND id BETWEEN ? AND ? AND battery_level <= ?";
+    private static final String DRAIN_SQL =
+            "UPDATE powerbank SET battery_level = battery_level - ? " +
+            "WHERE status = 'InUse' AND id BETWEEN ? AND ?";
+    private static final String CHARGED_SQL =
+            "UPDATE powerbank SET battery_level = LEAST(battery_level + ?, 100), status = 'Available' " +
+            "WHERE status = 'Unavailable' AND id BETWEEN ? AND ? AND battery_level + ? >= ?";
+    private static final String CHARGE_SQL =
+            "UPDATE powerbank SET battery_level = LEAST(battery_level + ?, 100) " +
+            "WHERE status = 'Unavailable' AND id BETWEEN ? AND ?";
+
     private static BatteryMonitor instance; // 用于避免多次实例化
     private final ScheduledExecutorService scheduler; // 用于定时检查电池状态，执行定时任务
     private boolean isRunning; // 是否正在运行
+    private volatile SweepReport lastReport; // 最近一次巡检结果
+    private int sweepCount; // 巡检次数（仅由定时任务线程访问）
 
     // 创建单例构造函数
     private BatteryMonitor() {
@@ -55,58 +85,166 @@ public class BatteryMonitor {
         }
     }
 
+    /**
+     * 获取最近一次巡检的统计结果
+     * @return 巡检结果，尚未执行过巡检时返回null
+     */
+    public SweepReport getLastReport() {
+        return lastReport;
+    }
+
+    // 电池巡检：按ID区间分批，每批用几条集合式UPDATE完成耗电和充电状态转换
     private void checkAndUpdateBatteries() {
         LogUtil.info("开始检查电池状态...");
+        long startNanos = System.nanoTime();
+        SweepReport report = new SweepReport();
         try {
-            // 处理正在使用的电池（电量减少）
-            String inUseQuery = "SELECT * FROM powerbank WHERE status = 'InUse'";
-            ResultSet inUseRs = DBHelper.executeQuery(inUseQuery);
-            int inUseCount = 0;
-            while (inUseRs.next()) {
-                inUseCount++;
-                int id = inUseRs.getInt("id");
-                int currentBattery = inUseRs.getInt("battery_level");
-                int newBattery = Math.max(0, currentBattery - BATTERY_DECREASE_RATE);
-                
-                String updateQuery;
-                if (newBattery == 0) {
-                    updateQuery = "UPDATE powerbank SET battery_level = ?, status = 'Unavailable' WHERE id = ?";
-                } else {
-                    updateQuery = "UPDATE powerbank SET battery_level = ? WHERE id = ?";
+            // 只在InUse/Unavailable电池的ID区间内分批（走status索引）
+            int minId;
+            int maxId;
+            ResultSet rangeRs = DBHelper.executeQuery(RANGE_SQL);
+            try {
+                if (!rangeRs.next() || rangeRs.getObject(1) == null) {
+                    report.finish(startNanos);
+                    lastReport = report;
+                    LogUtil.info("电池状态检查完成 - 没有需要处理的电池");
+                    return;
                 }
-                DBHelper.executeUpdate(updateQuery, newBattery, id);
-                
-                LogUtil.info(String.format("已更新电池ID %d 的电量：%d -> %d", id, currentBattery, newBattery));
+                minId = rangeRs.getInt(1);
+                maxId = rangeRs.getInt(2);
+            } finally {
+                DBHelper.closeResources(rangeRs, null);
             }
-            LogUtil.info("已处理 " + inUseCount + " 个正在使用的电池");
-            DBHelper.closeResources(inUseRs, null);
-
-            // 处理不可用的电池（充电）
-            String unavailableQuery = "SELECT * FROM powerbank WHERE status = 'Unavailable'";
-            ResultSet unavailableRs = DBHelper.executeQuery(unavailableQuery);
-            int unavailableCount = 0;
-            while (unavailableRs.next()) {
-                unavailableCount++;
-                int id = unavailableRs.getInt("id");
-                int currentBattery = unavailableRs.getInt("battery_level");
-                int newBattery = Math.min(100, currentBattery + BATTERY_INCREASE_RATE);
-                
-                String updateQuery;
-                if (newBattery >= BATTERY_FULL_THRESHOLD) {
-                    updateQuery = "UPDATE powerbank SET battery_level = ?, status = 'Available' WHERE id = ?";
-                } else {
-                    updateQuery = "UPDATE powerbank SET battery_level = ? WHERE id = ?";
-                }
-                DBHelper.executeUpdate(updateQuery, newBattery, id);
-                
-                LogUtil.info(String.format("已更新电池ID %d 的电量：%d -> %d", id, currentBattery, newBattery));
-            }
-            LogUtil.info("已处理 " + unavailableCount + " 个正在充电的电池");
-            DBHelper.closeResources(unavailableRs, null);
 
-            LogUtil.info("电池状态检查完成");
+            for (long low = minId; low <= maxId; low += SWEEP_CHUNK_SIZE) {
+                int high = (int) Math.min(maxId, low + SWEEP_CHUNK_SIZE - 1);
+                sweepChunk((int) low, high, report);
+            }
+            report.finish(startNanos);
+            lastReport = report;
+            LogUtil.info("电池状态检查完成 - " + report);
+            if (++sweepCount % INVENTORY_RESYNC_SWEEPS == 0) {
+                // 定期从数据库全量重建，纠正其他客户端造成的偏差
+                PowerBankInventory.getInstance().reload();
+            }
         } catch (SQLException e) {
+            // 部分区间可能已提交，内存索引无法确定状态，下次查询时重新加载
+            PowerBankInventory.getInstance().invalidate();
             LogUtil.error("更新电池状态时发生错误", e);
+        } finally {
+            // 定时任务结束后归还连接，避免长期占用连接池
+            DBHelper.closeConnection();
+        }
+    }
+
+    // 在一个事务内处理一个ID区间；语句顺序保证每个电池每次巡检只变化一次
+    // 内存库存索引按本批实际改动的行从数据库读回后更新，在提交前完成：这些行仍被本事务锁定，
+    // 其他写路径（如归还）只能在提交后修改它们，其索引更新必然晚于本次
+    private void sweepChunk(int low, int high, SweepReport report) throws SQLException {
+        PowerBankInventory inventory = PowerBankInventory.getInstance();
+        long version = inventory.loadedVersion();
+        Connection conn = DBHelper.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            // 0. 锁定本批要处理的电池，记下ID（索引未加载时无需读回）
+            BitSet touched = version >= 0 ? selectIds(LOCK_SQL, low, high) : null;
+            // 1. 使用中且电量即将耗尽：置0并转为不可用
+            report.depleted += executeChunk(DEPLETE_SQL, low, high, BATTERY_DECREASE_RATE);
+            // 2. 其余使用中的电池：减少电量
+            report.drained += executeChunk(DRAIN_SQL, BATTERY_DECREASE_RATE, low, high);
+            // 3. 不可用且充电后达到阈值：增加电量并转为可用
+            report.charged += executeChunk(CHARGED_SQL, BATTERY_INCREASE_RATE, low, high,
+                    BATTERY_INCREASE_RATE, BATTERY_FULL_THRESHOLD);
+            // 4. 其余不可用的电池（包括本次刚耗尽的）：继续充电
+            report.charging += executeChunk(CHARGE_SQL, BATTERY_INCREASE_RATE, low, high);
+            // 5. 读回改动的行，更新内存索引
+            if (touched != null && !touched.isEmpty()) {
+                refreshInventory(inventory, touched, low, high);
+            }
+            conn.commit();
+            report.chunks++;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        // 本批期间索引被（重新）加载过：加载读到的是提交前的数据，丢弃
+        if (inventory.loadedVersion() != version) {
+            inventory.invalidate();
+        }
+    }
+
+    private BitSet selectIds(String sql, int low, int high) throws SQLException {
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        stmt.setInt(1, low);
+        stmt.setInt(2, high);
+        BitSet ids = new BitSet();
+        ResultSet rs = stmt.executeQuery();
+        try {
+            while (rs.next()) {
+                ids.set(rs.getInt(1));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        return ids;
+    }
+
+    // 只更新本批改动过的行；区间内的其他行未被锁定，其索引由各自的写路径维护
+    private void refreshInventory(PowerBankInventory inventory, BitSet touched, int low, int high) throws SQLException {
+        PreparedStatement stmt = DBHelper.prepareStatement(STATE_SQL);
+        stmt.setInt(1, low);
+        stmt.setInt(2, high);
+        ResultSet rs = stmt.executeQuery();
+        try {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (touched.get(id)) {
+                    inventory.updateState(id, Status.valueOf(rs.getString(2)), rs.getInt(3));
+                }
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+    }
+
+    private int executeChunk(String sql, Object... params) throws SQLException {
+        PreparedStatement stmt = DBHelper.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return stmt.executeUpdate();
+    }
+
+    /**
+     * 单次巡检统计
+     * 记录各类状态转换的行数、处理批次和耗时
+     */
+    public static class SweepReport {
+        private int depleted;   // 耗尽转为不可用的数量
+        private int drained;    // 正常耗电的数量
+        private int charged;    // 充满转为可用的数量
+        private int charging;   // 继续充电的数量
+        private int chunks;     // 处理的ID区间批次数
+        private long elapsedMillis;
+
+        private void finish(long startNanos) {
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        public int getDepleted() { return depleted; }
+        public int getDrained() { return drained; }
+        public int getCharged() { return charged; }
+        public int getCharging() { return charging; }
+        public int getChunks() { return chunks; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return "使用中: " + (depleted + drained) + " 个（耗尽 " + depleted + " 个）, " +
+                    "充电中: " + (charged + charging) + " 个（充满 " + charged + " 个）, " +
+                    "批次: " + chunks + ", 耗时: " + elapsedMillis + "ms";
         }
     }
 }
@@ -0,0 +1,406 @@
+package util;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 数据库连接池
+ * Connection Pool
+ * 有界的JDBC连接池：支持最小空闲/最大连接数、空闲回收、借出校验以及借出等待统计
+ */
+public class ConnectionPool implements DataSource {
+    private static final long EVICTION_INTERVAL_MS = 30_000;    // 空闲回收检查间隔
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500); // 刚归还的连接无需再次校验
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minIdle;                  // 最小空闲连接数
+    private final int maxSize;                  // 最大连接数
+    private final long borrowTimeoutMillis;     // 借出等待超时
+    private final long idleTimeoutMillis;       // 空闲连接超时
+    private final int validationTimeoutSeconds; // 借出校验超时
+    private final int statementCacheSize;       // 每个连接缓存的预编译语句数
+
+    private final Semaphore permits;            // 控制同时借出的连接数
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger(); // 空闲+借出+正在建立的连接数，不超过 maxSize
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    // 统计信息
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeoutCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int minIdle, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("连接池大小配置无效: minIdle=" + minIdle + ", maxSize=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        // 后台线程负责回收空闲连接并补足最小空闲连接
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::evictAndFill, 0, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        LogUtil.info("数据库连接池已创建 - 最小空闲: " + minIdle + ", 最大连接数: " + maxSize);
+    }
+
+    /**
+     * 从连接池借出一个连接，调用close()即归还
+     * @return 池化连接
+     * @throws SQLException 等待超时或建立连接失败
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeoutCount.incrementAndGet();
+                LogUtil.warning("获取数据库连接超时 - 等待 " + borrowTimeoutMillis + "ms, " + getStats());
+                throw new SQLException("获取数据库连接超时（" + borrowTimeoutMillis + "ms）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdleConnection();
+            if (pooled == null) {
+                pooled = reserve() ? createConnection() : awaitIdleConnection(start);
+            }
+            recordBorrow(System.nanoTime() - start);
+            return pooled.checkout();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("连接池不支持指定用户名密码借出连接");
+    }
+
+    /**
+     * 关闭连接池，释放所有空闲连接
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.poll()) != null) {
+            destroy(pooled);
+        }
+        LogUtil.info("数据库连接池已关闭 - " + getStats());
+    }
+
+    // 取出一个可用的空闲连接，校验失败的连接直接销毁
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsedNanos < VALIDATION_BYPASS_NANOS || isValid(pooled)) {
+                return pooled;
+            }
+            validationFailureCount.incrementAndGet();
+            LogUtil.warning("空闲连接校验失败，已丢弃");
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    // 已持有许可但连接名额已满：名额被回收任务正在补充的空闲连接占用，等它放入空闲队列
+    private PooledConnection awaitIdleConnection(long start) throws SQLException {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    borrowTimeoutCount.incrementAndGet();
+                    LogUtil.warning("获取数据库连接超时 - 等待 " + borrowTimeoutMillis + "ms, " + getStats());
+                    throw new SQLException("获取数据库连接超时（" + borrowTimeoutMillis + "ms）");
+                }
+                PooledConnection pooled = idleConnections.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+                if (pooled != null) {
+                    return pooled;
+                }
+                // 期间有连接被销毁时名额会空出
+                if (reserve()) {
+                    return createConnection();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        }
+    }
+
+    // 预留一个连接名额，成功后须调用 createConnection()
+    private boolean reserve() {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= maxSize) {
+                return false;
+            }
+        } while (!totalConnections.compareAndSet(total, total + 1));
+        return true;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.raw.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // 调用方已通过 reserve() 预留名额，失败时归还名额
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection raw = DriverManager.getConnection(url, user, password);
+            createdCount.incrementAndGet();
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("新建数据库连接，当前连接总数: {}", totalConnections.get());
+            }
+            return new PooledConnection(raw);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            LogUtil.error("建立数据库连接失败", e);
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        pooled.statements.close();
+        try {
+            pooled.raw.close();
+        } catch (SQLException e) {
+            LogUtil.error("关闭数据库连接失败", e);
+        }
+    }
+
+    // 归还连接：回滚未提交的事务并恢复自动提交，然后放回空闲队列头部
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.raw.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!pooled.raw.getAutoCommit()) {
+                LogUtil.warning("归还的连接存在未结束的事务，已回滚");
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+            pooled.statements.release();
+            pooled.lastUsedNanos = System.nanoTime();
+            idleConnections.offerFirst(pooled);
+        } catch (SQLException e) {
+            LogUtil.error("归还数据库连接失败，连接已丢弃", e);
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // 回收超时的空闲连接，并补足最小空闲连接数
+    private void evictAndFill() {
+        try {
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+            long now = System.nanoTime();
+            Iterator<PooledConnection> it = idleConnections.descendingIterator();
+            while (it.hasNext() && idleConnections.size() > minIdle) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsedNanos > idleTimeoutNanos && idleConnections.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+            // 补充连接同样需要预留名额（空闲和借出的连接一起计数），保证连接总数不超过上限
+            while (!closed && idleConnections.size() < minIdle && reserve()) {
+                idleConnections.offerLast(createConnection());
+            }
+        } catch (SQLException e) {
+            LogUtil.warning("补充空闲连接失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LogUtil.error("连接池回收任务异常", e);
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        borrowCount.incrementAndGet();
+        borrowWaitNanos.addAndGet(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    // 统计信息
+    public int getMaxSize() { return maxSize; }
+    public int getTotalConnections() { return totalConnections.get(); }
+    public int getIdleConnections() { return idleConnections.size(); }
+    public int getActiveConnections() { return maxSize - permits.availablePermits(); }
+    public int getWaitingThreads() { return permits.getQueueLength(); }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getBorrowTimeoutCount() { return borrowTimeoutCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getDestroyedCount() { return destroyedCount.get(); }
+    public long getValidationFailureCount() { return validationFailureCount.get(); }
+
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : borrowWaitNanos.get() / 1_000_000.0 / count;
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 连接池状态摘要
+     * @return 状态字符串
+     */
+    public String getStats() {
+        return String.format("连接池状态[总数=%d, 活跃=%d, 空闲=%d, 等待=%d, 借出=%d, 超时=%d, 平均等待=%.2fms, 最大等待=%.2fms, 校验失败=%d]",
+                getTotalConnections(), getActiveConnections(), getIdleConnections(), getWaitingThreads(),
+                getBorrowCount(), getBorrowTimeoutCount(), getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(),
+                getValidationFailureCount());
+    }
+
+    // DataSource 其余方法
+    @Override
+    public PrintWriter getLogWriter() { return null; }
+    @Override
+    public void setLogWriter(PrintWriter out) {}
+    @Override
+    public void setLoginTimeout(int seconds) {}
+    @Override
+    public int getLoginTimeout() { return 0; }
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("不支持的类型: " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * 池中的物理连接
+     * 每次借出生成一个新的逻辑连接代理，代理关闭后即失效；语句缓存随物理连接存活
+     */
+    private class PooledConnection {
+        final Connection raw;
+        final StatementCache statements;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+            this.statements = new StatementCache(raw, statementCacheSize);
+        }
+
+        Connection checkout() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LogicalConnection(this));
+        }
+    }
+
+    /**
+     * 逻辑连接：拦截close()改为归还连接池，unwrap(StatementCache.class)返回该连接的语句缓存
+     */
+    private class LogicalConnection implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed = false;
+
+        LogicalConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.raw.isClosed();
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(pooled.raw));
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "isWrapperFor":
+                    if (args[0] == StatementCache.class) {
+                        return true;
+                    }
+                    break;
+                case "unwrap":
+                    if (args[0] == StatementCache.class) {
+                        return pooled.statements;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("连接已归还连接池");
+            }
+            try {
+                return method.invoke(pooled.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,9 +2,21 @@ package util;
 
 public interface DBConfig {
 
-    String DB_USER = "root";
-    String DB_PASSWORD = "251605";
-    String DB_URL = "jdbc:mysql://localhost:3306/power_rental";
+    // 连接信息（可通过 -D 系统属性覆盖，基准测试用其指向内嵌数据库）
+    String DB_USER = System.getProperty("db.user", "root");
+    String DB_PASSWORD = System.getProperty("db.password", "251605");
+    String DB_URL = System.getProperty("db.url", "jdbc:mysql://localhost:3306/power_rental");
     String Sqldriver = "com.mysql.cj.jdbc.Driver";
 
+    // 连接池配置（可通过 -D 系统属性覆盖）
+    int POOL_MIN_IDLE = Integer.getInteger("db.pool.minIdle", 2);                            // 最小空闲连接数
+    int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);                           // 最大连接数
+    long POOL_BORROW_TIMEOUT_MS = Long.getLong("db.pool.borrowTimeoutMs", 5_000);            // 借出等待超时
+    long POOL_IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 10 * 60 * 1_000);      // 空闲连接超时
+    int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("db.pool.validationTimeoutSeconds", 2); // 借出校验超时
+    int STATEMENT_CACHE_SIZE = Integer.getInteger("db.statementCacheSize", 64);              // 每个连接缓存的预编译语句数，0为关闭（语句在连接归还时关闭）
+    // 流式查询的 fetch size：MySQL 驱动只有 Integer.MIN_VALUE 才逐行读取（否则整表缓存在内存），其他数据库用正数分批读取
+    int STREAM_FETCH_SIZE = Integer.getInteger("db.streamFetchSize",
+            DB_URL.startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : 1000);
+
 }
@@ -5,48 +5,89 @@ import Commodity.Commodity;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 public class DBHelper implements DBConfig {
-    private static Connection connection = null;
+    private static final long REVALIDATE_AFTER_MS = 60_000; // 线程绑定连接闲置超过此时长后重新从连接池借出
+    private static final int MAX_INSERT_PARAMETERS = 65_535;  // MySQL 单条语句的占位符上限
+    private static final ConnectionPool POOL = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD,
+            POOL_MIN_IDLE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S,
+            STATEMENT_CACHE_SIZE);
+    // 每个线程独占一个借出的连接，避免EDT、电池监控线程和租借事务共用同一个连接
+    private static final ThreadLocal<ThreadConnection> THREAD_CONNECTION = new ThreadLocal<>();
 
-    // 获取数据库连接
+    // 获取当前线程的数据库连接（首次调用时从连接池借出）
     public static Connection getConnection() throws SQLException {
-        try {
-            if (connection == null || connection.isClosed()) {
-                LogUtil.info("正在建立数据库连接...");
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                LogUtil.info("数据库连接建立成功");
+        ThreadConnection bound = THREAD_CONNECTION.get();
+        long now = System.currentTimeMillis();
+        if (bound != null) {
+            boolean stale = now - bound.lastUsed > REVALIDATE_AFTER_MS && bound.connection.getAutoCommit();
+            if (!bound.connection.isClosed() && !stale) {
+                bound.lastUsed = now;
+                return bound.connection;
             }
-            return connection;
-        } catch (SQLException e) {
-            LogUtil.error("建立数据库连接失败", e);
-            throw e;
+            // 长时间闲置的连接先归还，由连接池在借出时重新校验
+            closeConnection();
         }
+        Connection conn = POOL.getConnection();
+        THREAD_CONNECTION.set(new ThreadConnection(conn, now));
+        return conn;
     }
 
-    // 关闭数据库连接
+    // 归还当前线程的数据库连接到连接池
     public static void closeConnection() {
+        ThreadConnection bound = THREAD_CONNECTION.get();
+        if (bound == null) {
+            return;
+        }
+        THREAD_CONNECTION.remove();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                LogUtil.info("数据库连接已关闭");
-            }
+            bound.connection.close();
         } catch (SQLException e) {
-            LogUtil.error("关闭数据库连接失败", e);
+            LogUtil.error("归还数据库连接失败", e);
+        }
+    }
+
+    // 获取连接池（供需要独立连接的场景使用，用完必须close）
+    public static ConnectionPool getDataSource() {
+        return POOL;
+    }
+
+    // 关闭连接池
+    public static void shutdown() {
+        closeConnection();
+        POOL.close();
+    }
+
+    // 获取当前线程连接上缓存的预编译语句（语句由缓存管理，调用方不得关闭）
+    public static PreparedStatement prepareStatement(String sql) throws SQLException {
+        Connection conn = getConnection();
+        if (conn.isWrapperFor(StatementCache.class)) {
+            return conn.unwrap(StatementCache.class).prepare(sql);
+        }
+        return conn.prepareStatement(sql);
+    }
+
+    // 获取缓存的预编译语句，可指定返回自增主键
+    public static PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        Connection conn = getConnection();
+        if (conn.isWrapperFor(StatementCache.class)) {
+            return conn.unwrap(StatementCache.class).prepare(sql, autoGeneratedKeys);
         }
+        return conn.prepareStatement(sql, autoGeneratedKeys);
     }
 
     // 执行查询操作
     public static ResultSet executeQuery(String sql, Object... params) throws SQLException {
-        Connection conn = getConnection();
-        PreparedStatement pstmt = conn.prepareStatement(sql);
+        PreparedStatement pstmt = prepareStatement(sql);
         
         try {
             // 设置参数
             for (int i = 0; i < params.length; i++) {
                 pstmt.setObject(i + 1, params[i]);
             }
-            LogUtil.debug("执行SQL查询: " + sql);
+            LogUtil.debug("执行SQL查询: {}", sql);
             return pstmt.executeQuery();
         } catch (SQLException e) {
             LogUtil.error("执行SQL查询失败: " + sql, e);
@@ -56,15 +97,14 @@ public class DBHelper implements DBConfig {
 
     // 执行更新操作（插入、更新、删除）
     public static int executeUpdate(String sql, Object... params) throws SQLException {
-        Connection conn = getConnection();
-        PreparedStatement pstmt = conn.prepareStatement(sql);
+        PreparedStatement pstmt = prepareStatement(sql);
         
         try {
             // 设置参数
             for (int i = 0; i < params.length; i++) {
                 pstmt.setObject(i + 1, params[i]);
             }
-            LogUtil.debug("执行SQL更新: " + sql);
+            LogUtil.debug("执行SQL更新: {}", sql);
             return pstmt.executeUpdate();
         } catch (SQLException e) {
             LogUtil.error("执行SQL更新失败: " + sql, e);
@@ -72,7 +112,84 @@ public class DBHelper implements DBConfig {
         }
     }
 
-    // 关闭ResultSet和Statement
+    // 流式查询：逐行映射后交给 consumer，整个结果集不驻留内存，返回处理的行数
+    // 流式结果集读完之前会独占连接，因此使用单独借出的连接，consumer 中仍可通过本线程的连接执行其他SQL
+    public static <T> long stream(String sql, RowMapper<T> mapper, Consumer<? super T> consumer, Object... params) throws SQLException {
+        try (Connection conn = POOL.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            LogUtil.debug("执行SQL流式查询: {}", sql);
+            long rows = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapper.map(rs));
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            LogUtil.error("执行SQL流式查询失败: " + sql, e);
+            throw e;
+        }
+    }
+
+    // 批量插入并按行顺序返回自增主键：sql 为单行 INSERT ... VALUES (?, ...)，按占位符上限把多行拼成一条
+    // INSERT ... VALUES (...), (...) 发送，每条语句一次往返取回该语句的全部主键（不依赖驱动的 rewriteBatchedStatements）
+    public static long[] executeInsertReturningKeys(String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return new long[0];
+        }
+        int valuesAt = sql.toUpperCase(Locale.ROOT).lastIndexOf("VALUES");
+        if (valuesAt < 0) {
+            throw new IllegalArgumentException("不是 INSERT ... VALUES 语句: " + sql);
+        }
+        String prefix = sql.substring(0, valuesAt + "VALUES".length()) + " ";
+        String rowPlaceholders = sql.substring(valuesAt + "VALUES".length()).trim();
+        int columnCount = rows.get(0).length;
+        int rowsPerStatement = Math.max(1, MAX_INSERT_PARAMETERS / Math.max(1, columnCount));
+
+        long[] keys = new long[rows.size()];
+        int count = 0;
+        Connection conn = getConnection();
+        for (int from = 0; from < rows.size(); from += rowsPerStatement) {
+            int to = Math.min(rows.size(), from + rowsPerStatement);
+            StringBuilder multiRowSql = new StringBuilder(prefix.length() + (to - from) * (rowPlaceholders.length() + 2));
+            multiRowSql.append(prefix);
+            for (int row = from; row < to; row++) {
+                multiRowSql.append(row > from ? ", " : "").append(rowPlaceholders);
+            }
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("执行SQL多行插入: {}, 行数: {}", sql, to - from);
+            }
+            // 行数随批次变化，不放入语句缓存
+            try (PreparedStatement pstmt = conn.prepareStatement(multiRowSql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (int row = from; row < to; row++) {
+                    for (Object value : rows.get(row)) {
+                        pstmt.setObject(index++, value);
+                    }
+                }
+                pstmt.executeUpdate();
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    while (generatedKeys.next() && count < to) {
+                        keys[count++] = generatedKeys.getLong(1);
+                    }
+                }
+            } catch (SQLException e) {
+                LogUtil.error("执行SQL多行插入失败: " + sql, e);
+                throw e;
+            }
+            if (count != to) {
+                throw new SQLException("返回的自增主键数量不符: 需要 " + (to - from) + ", 实际 " + (count - from));
+            }
+        }
+        return keys;
+    }
+
+    // 关闭ResultSet和Statement（缓存的语句被关闭后会在下次使用时重新预编译）
     public static void closeResources(ResultSet rs, Statement stmt) {
         try {
             if (rs != null) {
@@ -85,4 +202,15 @@ public class DBHelper implements DBConfig {
             LogUtil.error("关闭数据库资源失败", e);
         }
     }
+
+    // 线程绑定的连接及其最后使用时间
+    private static class ThreadConnection {
+        final Connection connection;
+        long lastUsed;
+
+        ThreadConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据库表结构
+ * Database Schema
+ * 建表语句的唯一来源：CreateDataBase 用它初始化 MySQL 数据库，基准测试用它初始化内嵌H2数据库（MySQL兼容模式）。
+ * H2 不支持引用非唯一列的外键，订单表的品牌外键可以省略。
+ */
+public final class DatabaseSchema {
+
+    private DatabaseSchema() {}
+
+    /**
+     * 按依赖顺序返回全部建表语句（CREATE TABLE IF NOT EXISTS）
+     * @param brandForeignKey 是否创建订单表引用移动电源品牌的外键（H2 不支持）
+     * @return 表名 -> 建表语句
+     */
+    public static Map<String, String> tables(boolean brandForeignKey) {
+        Map<String, String> tables = new LinkedHashMap<>();
+
+        // 用户表：存储用户信息，包括基本信息、会员状态和余额
+        tables.put("User", "CREATE TABLE IF NOT EXISTS User (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +           // 用户唯一标识
+                "username VARCHAR(50) NOT NULL UNIQUE, " +        // 用户名，不可重复
+                "phone VARCHAR(50) NOT NULL, " +                  // 手机号
+                "status ENUM('Common', 'VIP', 'Admin', 'SVIP') NOT NULL DEFAULT 'Common', " +  // 用户身份状态
+                "password VARCHAR(255) NOT NULL, " +              // 密码哈希（见 PasswordHasher）
+                "balance DECIMAL(10, 2) DEFAULT 0.00, " +        // 账户余额
+                "is_vip BOOLEAN DEFAULT FALSE, " +               // VIP标志
+                "is_svip BOOLEAN DEFAULT FALSE, " +              // SVIP标志
+                "expiresTime DATETIME DEFAULT NULL, " +          // 会员过期时间
+                "avatar VARCHAR(255) DEFAULT NULL, " +           // 用户头像路径
+                "INDEX idx_expires (expiresTime)" +              // 到期时间索引，会员到期服务按范围加载
+                ")");
+
+        // 移动电源表：管理所有移动电源设备的状态和信息
+        tables.put("PowerBank", "CREATE TABLE IF NOT EXISTS PowerBank (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 设备唯一标识
+                "status ENUM('Available', 'InUse', 'Unavailable') NOT NULL DEFAULT 'Available', " +  // 设备当前状态
+                "battery_level INT NOT NULL, " +                 // 电池电量
+                "rental_price_per_hour DECIMAL(5, 2) NOT NULL DEFAULT 1.50, " +  // 每小时租金
+                "brand VARCHAR(500) NOT NULL, " +                // 设备品牌
+                "INDEX idx_brand (brand), " +                    // 品牌索引，提高查询效率
+                "INDEX idx_status (status)" +                    // 状态索引，电池巡检只扫描使用中/不可用的设备
+                ")");
+
+        // 订单表：记录租赁交易信息
+        tables.put("Order", "CREATE TABLE IF NOT EXISTS `Order` (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 订单唯一标识
+                "user_id INT NOT NULL, " +                       // 关联用户ID
+                "powerbank_id INT NOT NULL, " +                  // 关联移动电源ID
+                "brand VARCHAR(500) NOT NULL, " +                // 移动电源品牌
+                "rental_duration_hours INT DEFAULT 0, " +        // 租赁时长（小时）
+                "total_cost DECIMAL(10, 2) DEFAULT 0.00, " +     // 总费用
+                "order_code VARCHAR(50) DEFAULT NULL, " +        // 订单编号
+                "rental_start_time DATETIME NOT NULL, " +        // 租赁开始时间
+                "return_time DATETIME DEFAULT NULL, " +          // 归还时间
+                "deposit DECIMAL(10, 2) DEFAULT 0.00, " +        // 押金金额
+                "INDEX idx_user_start (user_id, rental_start_time, id), " +  // 订单历史游标分页索引
+                "UNIQUE INDEX uk_order_code (order_code), " +    // 订单编号唯一（未归还订单为NULL，不受限制）
+                "FOREIGN KEY (user_id) REFERENCES User(id) ON DELETE CASCADE, " +           // 用户外键关联
+                "FOREIGN KEY (powerbank_id) REFERENCES PowerBank(id) ON DELETE CASCADE" +   // 设备外键关联
+                (brandForeignKey ? ", FOREIGN KEY (brand) REFERENCES PowerBank(brand) ON DELETE CASCADE" : "") + // 品牌外键关联
+                ")");
+
+        // 账本分录表：复式记账，只追加不修改；每笔业务两条金额相反的分录（系统账户ID为负数）
+        tables.put("ledger_entry", "CREATE TABLE IF NOT EXISTS ledger_entry (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +       // 分录唯一标识
+                "account_id INT NOT NULL, " +                    // 账户ID（用户ID或系统账户）
+                "entry_type ENUM('Deposit', 'Refund', 'Rent', 'Recharge', 'Membership', 'Settlement') NOT NULL, " +  // 分录类型
+                "reference_id INT NOT NULL, " +                  // 关联ID（订单ID或用户ID）
+                "amount DECIMAL(10, 2) NOT NULL, " +             // 金额（转入为正，转出为负）
+                "created_time DATETIME NOT NULL, " +             // 记账时间
+                "INDEX idx_account_entry (account_id, id)" +     // 按账户查询分录
+                ")");
+
+        // 系统账户余额表：与分录在同一事务中累加；按用户ID分槽，余额 = 各槽之和（用户余额在 User.balance）
+        tables.put("account_balance", "CREATE TABLE IF NOT EXISTS account_balance (" +
+                "account_id INT NOT NULL, " +                    // 系统账户ID（负数）
+                "slot INT NOT NULL, " +                          // 槽号
+                "balance DECIMAL(14, 2) NOT NULL DEFAULT 0.00, " +  // 槽内余额
+                "PRIMARY KEY (account_id, slot)" +
+                ")");
+
+        // 记住登录令牌表：只保存令牌校验值的摘要（见 RememberMeToken）
+        tables.put("login_token", "CREATE TABLE IF NOT EXISTS login_token (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 令牌唯一标识
+                "user_id INT NOT NULL, " +                       // 关联用户ID
+                "selector CHAR(24) NOT NULL UNIQUE, " +          // 令牌查找键
+                "validator_hash CHAR(64) NOT NULL, " +           // 令牌校验值的 SHA-256 摘要
+                "expires_time DATETIME NOT NULL, " +             // 过期时间
+                "FOREIGN KEY (user_id) REFERENCES User(id) ON DELETE CASCADE" +
+                ")");
+
+        // 计费规则表：由 PricingEngine 加载，各类规则的百分比相乘得到最终价格
+        tables.put("pricing_rule", "CREATE TABLE IF NOT EXISTS pricing_rule (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +          // 规则唯一标识
+                "rule_type ENUM('Membership', 'Brand', 'TimeOfDay', 'Duration') NOT NULL, " +  // 规则类型
+                "rule_key VARCHAR(50) NOT NULL, " +              // 会员状态/品牌/时段"HH-HH"/最少小时数
+                "percent INT NOT NULL DEFAULT 100, " +           // 价格百分比（80表示8折）
+                "deposit DECIMAL(10, 2) DEFAULT NULL, " +        // 押金（仅会员规则）
+                "enabled BOOLEAN NOT NULL DEFAULT TRUE" +        // 是否启用
+                ")");
+        return tables;
+    }
+}
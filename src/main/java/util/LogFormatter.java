@@ -0,0 +1,29 @@
+package util;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * 日志格式化器
+ * Log Formatter
+ * 输出格式：[yyyy-MM-dd HH:mm:ss] [级别] 消息
+ * 时间取自日志记录本身（异步写入时为业务线程记录日志的时间），格式化器无状态，无需加锁。
+ */
+public class LogFormatter extends SimpleFormatter {
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    @Override
+    public String format(LogRecord lr) {
+        String message = lr.getMessage();
+        StringBuilder sb = new StringBuilder(48 + (message == null ? 4 : message.length()));
+        sb.append('[');
+        TIME_FORMAT.formatTo(lr.getInstant(), sb);
+        sb.append("] [").append(lr.getLevel().getLocalizedName()).append("] ")
+          .append(message).append(' ').append(LINE_SEPARATOR);
+        return sb.toString();
+    }
+}
@@ -5,10 +5,20 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
 public class LogUtil {
     private static final Logger LOGGER = Logger.getLogger("MobilePowerRental");
     private static boolean isInitialized = false;
+    private static final String LEVEL = System.getProperty("log.level", "ALL");  // 日志级别 ALL/DEBUG/INFO/WARNING/ERROR
+
+    // 异步日志配置（可通过 -D 系统属性覆盖）
+    private static final boolean ASYNC = Boolean.parseBoolean(System.getProperty("log.async", "true"));  // 是否异步写日志
+    private static final int ASYNC_BUFFER_SIZE = Integer.getInteger("log.bufferSize", 8192);            // 环形缓冲区容量
+    private static final int ASYNC_BATCH_SIZE = Integer.getInteger("log.batchSize", 256);               // 每批写入条数
+    private static final String ASYNC_OVERFLOW = System.getProperty("log.overflow", "DROP_DEBUG");      // 溢出策略 BLOCK/DROP_DEBUG/SAMPLE
+    private static final int ASYNC_SAMPLE_RATE = Integer.getInteger("log.sampleRate", 10);              // SAMPLE策略的采样间隔
+    private static AsyncLogHandler asyncHandler;
 
     static {
         init();
@@ -20,36 +30,25 @@ public class LogUtil {
             return;
         }
 
-        try {
-            // 移除所有现有的处理器
-            Logger rootLogger = Logger.getLogger("");
-            Handler[] handlers = rootLogger.getHandlers();
-            for (Handler handler : handlers) {
-                rootLogger.removeHandler(handler);
-            }
+        // 移除所有现有的处理器
+        Logger rootLogger = Logger.getLogger("");
+        Handler[] handlers = rootLogger.getHandlers();
+        for (Handler handler : handlers) {
+            rootLogger.removeHandler(handler);
+        }
 
-            // 创建控制台处理器
-            ConsoleHandler consoleHandler = new ConsoleHandler();
-            consoleHandler.setLevel(Level.ALL);
-            
-            // 自定义格式
-            SimpleFormatter formatter = new SimpleFormatter() {
-                private static final String format = "[%1$tF %1$tT] [%2$s] %3$s %n";
-
-                @Override
-                public synchronized String format(LogRecord lr) {
-                    return String.format(format,
-                        LocalDateTime.now(),
-                        lr.getLevel().getLocalizedName(),
-                        lr.getMessage()
-                    );
-                }
-            };
-            consoleHandler.setFormatter(formatter);
+        // 创建控制台处理器
+        ConsoleHandler consoleHandler = new ConsoleHandler();
+        consoleHandler.setLevel(Level.ALL);
 
-            // 设置日志级别
-            LOGGER.setLevel(Level.ALL);
-            LOGGER.addHandler(consoleHandler);
+        // 自定义格式
+        LogFormatter formatter = new LogFormatter();
+        consoleHandler.setFormatter(formatter);
+
+        // 设置日志级别
+        LOGGER.setLevel(parseLevel(LEVEL));
+
+        try {
 
             // 创建logs目录（如果不存在）
             File logsDir = new File("logs");
@@ -62,15 +61,71 @@ public class LogUtil {
             FileHandler fileHandler = new FileHandler("logs/powerbank_" + timestamp + ".log", true);
             fileHandler.setLevel(Level.ALL);
             fileHandler.setFormatter(formatter);
-            LOGGER.addHandler(fileHandler);
+
+            if (ASYNC) {
+                // 业务线程只入队，由后台线程批量写入控制台和文件
+                asyncHandler = new AsyncLogHandler(ASYNC_BUFFER_SIZE, ASYNC_BATCH_SIZE,
+                        AsyncLogHandler.OverflowPolicy.valueOf(ASYNC_OVERFLOW.toUpperCase()), ASYNC_SAMPLE_RATE,
+                        consoleHandler, fileHandler);
+                LOGGER.addHandler(asyncHandler);
+                // 退出前写完缓冲区中的日志
+                Runtime.getRuntime().addShutdownHook(new Thread(asyncHandler::close, "async-log-shutdown"));
+            } else {
+                LOGGER.addHandler(consoleHandler);
+                LOGGER.addHandler(fileHandler);
+            }
 
             isInitialized = true;
         } catch (IOException e) {
+            // 文件日志不可用时仍保留控制台输出
+            LOGGER.addHandler(consoleHandler);
             System.err.println("初始化日志系统失败: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * 等待已提交的日志写完并刷新
+     */
+    public static void flush() {
+        for (Handler handler : LOGGER.getHandlers()) {
+            handler.flush();
+        }
+    }
+
+    /**
+     * 异步日志统计
+     * @return 统计字符串，同步模式下返回说明
+     */
+    public static String getStats() {
+        return asyncHandler != null ? asyncHandler.getStats() : "同步日志模式";
+    }
+
+    // 支持 DEBUG/ERROR 别名，其余按 java.util.logging 级别名解析
+    private static Level parseLevel(String name) {
+        switch (name.toUpperCase()) {
+            case "DEBUG":
+                return Level.FINE;
+            case "ERROR":
+                return Level.SEVERE;
+            default:
+                try {
+                    return Level.parse(name.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("无效的日志级别: " + name + "，使用 ALL");
+                    return Level.ALL;
+                }
+        }
+    }
+
+    public static boolean isDebugEnabled() {
+        return LOGGER.isLoggable(Level.FINE);
+    }
+
+    public static boolean isInfoEnabled() {
+        return LOGGER.isLoggable(Level.INFO);
+    }
+
     public static void info(String message) {
         LOGGER.info(message);
     }
@@ -90,4 +145,119 @@ public class LogUtil {
     public static void debug(String message) {
         LOGGER.fine(message);
     }
+
+    // 延迟构造：级别关闭时不调用 Supplier
+    public static void debug(Supplier<String> message) {
+        LOGGER.fine(message);
+    }
+
+    public static void info(Supplier<String> message) {
+        LOGGER.info(message);
+    }
+
+    public static void warning(Supplier<String> message) {
+        LOGGER.warning(message);
+    }
+
+    // 参数化模板：以 {} 占位，级别关闭时不拼接字符串（固定参数个数的重载避免创建可变参数数组）
+    // 基本类型参数在调用前就会装箱，热点路径上传基本类型或现算的参数时先判断 isDebugEnabled()
+    public static void debug(String template, Object arg) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(format(template, arg, null, null, 1));
+        }
+    }
+
+    public static void debug(String template, Object arg1, Object arg2) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(format(template, arg1, arg2, null, 2));
+        }
+    }
+
+    public static void debug(String template, Object arg1, Object arg2, Object arg3) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(format(template, arg1, arg2, arg3, 3));
+        }
+    }
+
+    public static void debug(String template, Object... args) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(format(template, args));
+        }
+    }
+
+    public static void info(String template, Object arg) {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(format(template, arg, null, null, 1));
+        }
+    }
+
+    public static void info(String template, Object arg1, Object arg2) {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(format(template, arg1, arg2, null, 2));
+        }
+    }
+
+    public static void info(String template, Object arg1, Object arg2, Object arg3) {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(format(template, arg1, arg2, arg3, 3));
+        }
+    }
+
+    public static void info(String template, Object... args) {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(format(template, args));
+        }
+    }
+
+    public static void warning(String template, Object arg) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(format(template, arg, null, null, 1));
+        }
+    }
+
+    public static void warning(String template, Object arg1, Object arg2) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(format(template, arg1, arg2, null, 2));
+        }
+    }
+
+    public static void warning(String template, Object arg1, Object arg2, Object arg3) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(format(template, arg1, arg2, arg3, 3));
+        }
+    }
+
+    public static void warning(String template, Object... args) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(format(template, args));
+        }
+    }
+
+    private static String format(String template, Object arg1, Object arg2, Object arg3, int count) {
+        StringBuilder sb = new StringBuilder(template.length() + 16 * count);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int index = template.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            sb.append(template, start, index).append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            start = index + 2;
+        }
+        return sb.append(template, start, template.length()).toString();
+    }
+
+    private static String format(String template, Object[] args) {
+        StringBuilder sb = new StringBuilder(template.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = template.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            sb.append(template, start, index).append(arg);
+            start = index + 2;
+        }
+        return sb.append(template, start, template.length()).toString();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,134 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 金额工具
+ * Money
+ * 金额统一用 long 表示，单位为分，与数据库 DECIMAL(x, 2) 一一对应。
+ * 运算只做整数加减乘和四舍五入（半分进位），不创建对象；只有读写数据库和解析输入时才经过 BigDecimal。
+ */
+public final class Money {
+    private static final int CENTS_PER_YUAN = 100;
+
+    private Money() {}
+
+    /**
+     * 乘以数量（如小时数），溢出时抛出 ArithmeticException
+     * @param cents 单价（分）
+     * @param quantity 数量
+     * @return 金额（分）
+     */
+    public static long multiply(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * 按百分比计算（如折扣），结果四舍五入到分
+     * @param cents 金额（分）
+     * @param percent 百分比，80 表示八折
+     * @return 金额（分）
+     */
+    public static long percent(long cents, int percent) {
+        long scaled = Math.multiplyExact(cents, percent);
+        // 远离零方向进位，保证正负金额对称
+        return scaled >= 0 ? (scaled + 50) / 100 : (scaled - 50) / 100;
+    }
+
+    /**
+     * 按比例缩放（如多个折扣百分比连乘），结果只在最后四舍五入一次
+     * @param cents 金额（分）
+     * @param numerator 分子
+     * @param denominator 分母（正数）
+     * @return 金额（分）
+     */
+    public static long scale(long cents, long numerator, long denominator) {
+        long scaled = Math.multiplyExact(cents, numerator);
+        long half = denominator / 2;
+        return scaled >= 0 ? (scaled + half) / denominator : (scaled - half) / denominator;
+    }
+
+    /**
+     * 格式化为两位小数（如 12.50、-0.05），不带货币符号
+     * @param cents 金额（分）
+     * @return 格式化字符串
+     */
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        long abs = Math.abs(cents);
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long fraction = abs % CENTS_PER_YUAN;
+        sb.append(abs / CENTS_PER_YUAN).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+
+    /**
+     * 解析用户输入的金额（最多两位小数）
+     * @param text 金额文本（元）
+     * @return 金额（分）
+     * @throws NumberFormatException 格式错误或超过两位小数
+     */
+    public static long parse(String text) {
+        BigDecimal value = new BigDecimal(text.trim());
+        try {
+            return value.movePointRight(2).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("金额最多两位小数: " + text);
+        }
+    }
+
+    /**
+     * 读取 DECIMAL 列
+     * @param rs 结果集
+     * @param column 列名
+     * @return 金额（分），NULL 返回 0
+     * @throws SQLException SQL异常
+     */
+    public static long get(ResultSet rs, String column) throws SQLException {
+        return toCents(rs.getBigDecimal(column));
+    }
+
+    /**
+     * 读取 DECIMAL 列
+     * @param rs 结果集
+     * @param index 列序号
+     * @return 金额（分），NULL 返回 0
+     * @throws SQLException SQL异常
+     */
+    public static long get(ResultSet rs, int index) throws SQLException {
+        return toCents(rs.getBigDecimal(index));
+    }
+
+    /**
+     * 设置 DECIMAL 参数
+     * @param stmt 预编译语句
+     * @param index 参数序号
+     * @param cents 金额（分）
+     * @throws SQLException SQL异常
+     */
+    public static void set(PreparedStatement stmt, int index, long cents) throws SQLException {
+        stmt.setBigDecimal(index, toDecimal(cents));
+    }
+
+    /**
+     * 转为 DECIMAL 参数值（用于 DBHelper 的可变参数接口）
+     * @param cents 金额（分）
+     * @return 两位小数的 BigDecimal
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value == null ? 0 : value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
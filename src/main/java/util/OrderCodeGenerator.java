@@ -0,0 +1,106 @@
+package util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单编号生成器
+ * Order Code Generator
+ * 生成 "ORD" + 时间(yyyyMMddHHmmssSSS) + 节点号(4位) + 序号(5位) 格式的订单编号，共29位。
+ * 时间和序号打包在一个 AtomicLong 中（毫秒 * 100000 + 序号），通过 CAS 单调递增：
+ * 同一毫秒内序号用完或系统时钟回拨时沿用逻辑时间继续递增，因此同一节点内不会重复。
+ * 不同节点（进程）通过 order.nodeId 系统属性区分，多实例部署时必须配置为不同的值（0-9999）；
+ * 未配置时取进程号，仅保证单机多进程不冲突。数据库上的 order_code 唯一索引兜底。
+ */
+public final class OrderCodeGenerator {
+    private static final long SEQUENCE_LIMIT = 100_000;  // 每毫秒最多 100000 个序号（5位）
+    private static final long MILLIS_PER_HOUR = 3_600_000;
+    private static final int NODE_ID = resolveNodeId();
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final AtomicLong state = new AtomicLong();
+    private static volatile HourPrefix hourPrefix = HourPrefix.of(System.currentTimeMillis());
+
+    private OrderCodeGenerator() {}
+
+    /**
+     * 生成下一个订单编号
+     * @return 订单编号
+     */
+    public static String next() {
+        long current;
+        long updated;
+        do {
+            current = state.get();
+            long now = System.currentTimeMillis();
+            // 时钟前进则从新毫秒的0号开始，否则在原逻辑时间上递增（序号溢出时自然进位到下一毫秒）
+            updated = now > current / SEQUENCE_LIMIT ? now * SEQUENCE_LIMIT : current + 1;
+        } while (!state.compareAndSet(current, updated));
+        return encode(updated / SEQUENCE_LIMIT, updated % SEQUENCE_LIMIT);
+    }
+
+    private static String encode(long millis, long sequence) {
+        HourPrefix prefix = hourPrefix;
+        if (millis < prefix.start || millis >= prefix.start + MILLIS_PER_HOUR) {
+            prefix = HourPrefix.of(millis);
+            hourPrefix = prefix;
+        }
+        long withinHour = millis - prefix.start;
+        char[] chars = new char[29];
+        System.arraycopy(prefix.chars, 0, chars, 0, 13); // "ORD" + yyyyMMddHH
+        writeDigits(chars, 13, withinHour / 60_000, 2);
+        writeDigits(chars, 15, withinHour / 1000 % 60, 2);
+        writeDigits(chars, 17, withinHour % 1000, 3);
+        writeDigits(chars, 20, NODE_ID, 4);
+        writeDigits(chars, 24, sequence, 5);
+        return new String(chars);
+    }
+
+    private static void writeDigits(char[] chars, int offset, long value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int resolveNodeId() {
+        Integer configured = Integer.getInteger("order.nodeId");
+        if (configured != null) {
+            if (configured < 0 || configured >= 10_000) {
+                throw new IllegalStateException("order.nodeId 必须在 0-9999 之间: " + configured);
+            }
+            return configured;
+        }
+        return (int) (ProcessHandle.current().pid() % 10_000);
+    }
+
+    // 当前小时的编号前缀缓存（"ORD" + yyyyMMddHH），每小时只做一次日期换算
+    private static final class HourPrefix {
+        final long start;
+        final char[] chars;
+
+        private HourPrefix(long start, char[] chars) {
+            this.start = start;
+            this.chars = chars;
+        }
+
+        static HourPrefix of(long millis) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE);
+            LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+            // 按本地时间倒推本小时起点，夏令时回拨的重复小时也能得到正确的起点
+            long start = millis - ChronoUnit.MILLIS.between(hour, time);
+            char[] chars = new char[13];
+            chars[0] = 'O';
+            chars[1] = 'R';
+            chars[2] = 'D';
+            writeDigits(chars, 3, hour.getYear(), 4);
+            writeDigits(chars, 7, hour.getMonthValue(), 2);
+            writeDigits(chars, 9, hour.getDayOfMonth(), 2);
+            writeDigits(chars, 11, hour.getHour(), 2);
+            return new HourPrefix(start, chars);
+        }
+    }
+}
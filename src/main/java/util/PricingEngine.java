@@ -0,0 +1,295 @@
+package util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 计费规则引擎
+ * Pricing Engine
+ * 从 pricing_rule 表加载会员、品牌、时段、时长阶梯四类规则，编译为不可变的数组查找表，
+ * 通过 AtomicReference 整体替换。报价只做几次数组/哈希查找和一次整数缩放，不比较字符串常量。
+ * 规则表为空或加载失败时使用内置默认规则（SVIP 5折、VIP 8折、普通用户押金99元）。
+ *
+ * 规则格式（rule_key）：
+ * Membership: 会员状态（Common/VIP/SVIP/Admin），percent 为折扣百分比，deposit 为押金
+ * Brand: 品牌名，percent 为价格百分比
+ * TimeOfDay: 起止小时 "HH-HH"（不含结束小时，可跨零点，如 "22-6"；小时取 0-24，"0-24" 表示全天），按租借开始时间匹配
+ * Duration: 最少小时数，租借时长达到该值时适用，多条取阈值最大者
+ * 各类百分比相乘后一次性四舍五入到分。
+ */
+public class PricingEngine {
+    private static final int RELOAD_INTERVAL = Integer.getInteger("pricing.reloadSeconds", 60); // 规则重载间隔（秒）
+    private static final String LOAD_SQL =
+            "SELECT rule_type, rule_key, percent, deposit FROM pricing_rule WHERE enabled = TRUE ORDER BY id";
+
+    // 会员状态下标，与 user.status 枚举一致
+    static final int COMMON = 0;
+    static final int VIP = 1;
+    static final int SVIP = 2;
+    static final int ADMIN = 3;
+    private static final String[] MEMBERSHIPS = {"Common", "VIP", "SVIP", "Admin"};
+
+    private static PricingEngine instance;
+    private final AtomicReference<Table> table = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler;
+    private boolean isRunning;
+
+    private PricingEngine() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pricing-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static PricingEngine getInstance() {
+        if (instance == null) {
+            synchronized (PricingEngine.class) {
+                if (instance == null) {
+                    instance = new PricingEngine();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 立即加载规则，并定时重新加载
+     */
+    public synchronized void start() {
+        if (!isRunning) {
+            scheduler.scheduleWithFixedDelay(this::scheduledReload, 0, RELOAD_INTERVAL, TimeUnit.SECONDS);
+            isRunning = true;
+            LogUtil.info("计费规则服务已启动，将每" + RELOAD_INTERVAL + "秒重新加载一次");
+        }
+    }
+
+    public synchronized void stop() {
+        if (isRunning) {
+            scheduler.shutdown();
+            isRunning = false;
+            LogUtil.info("计费规则服务已停止");
+        }
+    }
+
+    /**
+     * 当前规则表（首次使用时同步加载）
+     * @return 不可变规则表
+     */
+    public Table current() {
+        Table current = table.get();
+        if (current == null) {
+            reloadSafely();
+            current = table.get();
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新加载并原子替换规则表
+     * @throws SQLException SQL异常
+     */
+    public void reload() throws SQLException {
+        Builder builder = new Builder();
+        ResultSet rs = DBHelper.executeQuery(LOAD_SQL);
+        try {
+            while (rs.next()) {
+                builder.add(rs.getString("rule_type"), rs.getString("rule_key"), rs.getInt("percent"),
+                        rs.getObject("deposit") == null ? -1 : Money.get(rs, "deposit"));
+            }
+        } finally {
+            DBHelper.closeResources(rs, null);
+        }
+        Table compiled = builder.build();
+        table.set(compiled);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("计费规则已加载 - 规则数: {}", builder.count);
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (SQLException e) {
+            // 加载失败时保留旧规则；尚无规则时使用默认规则
+            if (table.compareAndSet(null, new Builder().build())) {
+                LogUtil.warning("加载计费规则失败，使用默认规则: " + e.getMessage());
+            } else {
+                LogUtil.warning("重新加载计费规则失败，继续使用旧规则: " + e.getMessage());
+            }
+        }
+    }
+
+    private void scheduledReload() {
+        try {
+            reloadSafely();
+        } finally {
+            DBHelper.closeConnection();
+        }
+    }
+
+    /**
+     * 会员状态下标
+     * @param status 会员状态
+     * @return 下标，未知状态按普通用户处理
+     */
+    static int membershipIndex(String status) {
+        if (status == null) {
+            return COMMON;
+        }
+        switch (status) {
+            case "VIP":
+                return VIP;
+            case "SVIP":
+                return SVIP;
+            case "Admin":
+                return ADMIN;
+            default:
+                return COMMON;
+        }
+    }
+
+    /**
+     * 编译后的规则表（不可变）
+     */
+    public static final class Table {
+        private static final long PERCENT_SCALE = 100L * 100 * 100 * 100; // 四类百分比相乘的分母
+
+        private final int[] membershipPercent;
+        private final long[] membershipDeposit;
+        private final Map<String, Integer> brandPercent;
+        private final int[] hourPercent;       // 下标为租借开始的小时（0-23）
+        private final int[] durationPercent;   // 下标为租借时长，超过最大阈值取最后一项
+
+        private Table(int[] membershipPercent, long[] membershipDeposit, Map<String, Integer> brandPercent,
+                      int[] hourPercent, int[] durationPercent) {
+            this.membershipPercent = membershipPercent;
+            this.membershipDeposit = membershipDeposit;
+            this.brandPercent = brandPercent;
+            this.hourPercent = hourPercent;
+            this.durationPercent = durationPercent;
+        }
+
+        /**
+         * 计算实际费用
+         * @param listCost 租金原价（分）
+         * @param status 会员状态
+         * @param brand 品牌（null 表示不限）
+         * @param startHour 租借开始的小时（0-23，负数表示不限）
+         * @param hours 租借时长（小时）
+         * @return 实际费用（分）
+         */
+        public long quote(long listCost, String status, String brand, int startHour, long hours) {
+            long factor = (long) membershipPercent[membershipIndex(status)]
+                    * (brand == null ? 100 : brandPercent.getOrDefault(brand, 100))
+                    * (startHour < 0 ? 100 : hourPercent[startHour])
+                    * durationPercent[(int) Math.min(Math.max(hours, 0), durationPercent.length - 1)];
+            return Money.scale(listCost, factor, PERCENT_SCALE);
+        }
+
+        /**
+         * 会员折扣百分比
+         * @param status 会员状态
+         * @return 百分比，100 表示无折扣
+         */
+        public int membershipPercent(String status) {
+            return membershipPercent[membershipIndex(status)];
+        }
+
+        /**
+         * 押金
+         * @param status 会员状态
+         * @return 押金（分）
+         */
+        public long deposit(String status) {
+            return membershipDeposit[membershipIndex(status)];
+        }
+    }
+
+    // 规则编译器：先按默认规则初始化，再逐条覆盖
+    private static final class Builder {
+        private final int[] membershipPercent = {100, 80, 50, 100};
+        private final long[] membershipDeposit = {9900, 0, 0, 9900};
+        private final Map<String, Integer> brandPercent = new HashMap<>();
+        private final int[] hourPercent = new int[24];
+        private final Map<Integer, Integer> durationTiers = new HashMap<>();
+        private int count;
+
+        Builder() {
+            Arrays.fill(hourPercent, 100);
+        }
+
+        void add(String type, String key, int percent, long deposit) {
+            try {
+                if (percent < 0) {
+                    throw new IllegalArgumentException("百分比不能为负数"); // 否则报价可能为负
+                }
+                switch (type) {
+                    case "Membership":
+                        int index = Arrays.asList(MEMBERSHIPS).indexOf(key);
+                        if (index < 0) {
+                            throw new IllegalArgumentException("未知会员状态");
+                        }
+                        membershipPercent[index] = percent;
+                        if (deposit >= 0) {
+                            membershipDeposit[index] = deposit;
+                        }
+                        break;
+                    case "Brand":
+                        brandPercent.put(key, percent);
+                        break;
+                    case "TimeOfDay":
+                        // "起-止" 为左闭右开的小时区间，可跨零点（如 "22-6"）；24 等同于 0，起止相同（如 "0-24"）表示全天
+                        String[] range = key.split("-");
+                        if (range.length != 2) {
+                            throw new IllegalArgumentException("时段格式应为 起-止");
+                        }
+                        int start = parseHour(range[0]);
+                        int end = parseHour(range[1]);
+                        int hour = start;
+                        do {
+                            hourPercent[hour] = percent;
+                            hour = (hour + 1) % 24;
+                        } while (hour != end);
+                        break;
+                    case "Duration":
+                        durationTiers.put(Integer.parseInt(key.trim()), percent);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知规则类型");
+                }
+                count++;
+            } catch (RuntimeException e) {
+                LogUtil.warning("忽略无效计费规则 - 类型: {}, 键: {}, 原因: {}", type, key, e.getMessage());
+            }
+        }
+
+        // 小时取值 0-24，24 按 0 处理
+        private static int parseHour(String value) {
+            int hour = Integer.parseInt(value.trim());
+            if (hour < 0 || hour > 24) {
+                throw new IllegalArgumentException("小时超出范围 0-24: " + hour);
+            }
+            return hour % 24;
+        }
+
+        Table build() {
+            int maxTier = durationTiers.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+            int[] durationPercent = new int[maxTier + 1];
+            int percent = 100;
+            for (int hours = 0; hours <= maxTier; hours++) {
+                percent = durationTiers.getOrDefault(hours, percent);
+                durationPercent[hours] = percent;
+            }
+            return new Table(membershipPercent.clone(), membershipDeposit.clone(), Map.copyOf(brandPercent),
+                    hourPercent.clone(), durationPercent);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 结果集行映射
+ * Row Mapper
+ * 把结果集的当前行映射为对象，供 DBHelper.stream 逐行读取时使用。
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
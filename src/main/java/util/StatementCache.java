@@ -0,0 +1,147 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预编译语句缓存
+ * PreparedStatement Cache
+ * 按SQL文本缓存单个物理连接上的PreparedStatement（LRU），被淘汰的语句立即关闭。
+ * 缓存大小为0时不缓存，每次新建的语句记录下来，在连接归还连接池时统一关闭（调用方同样不得关闭）。
+ * 连接同一时刻只会被一个线程借出，因此缓存本身无需加锁。
+ */
+public class StatementCache {
+    private static final String GENERATED_KEYS_PREFIX = "#keys#"; // 返回自增主键的语句使用独立的缓存键
+
+    // 所有连接的累计统计
+    private static final LongAdder TOTAL_HITS = new LongAdder();
+    private static final LongAdder TOTAL_MISSES = new LongAdder();
+    private static final LongAdder TOTAL_EVICTIONS = new LongAdder();
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final List<PreparedStatement> uncached = new ArrayList<>(); // 关闭缓存时借出期间新建的语句
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        // accessOrder=true 即按最近使用排序
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                evictions++;
+                TOTAL_EVICTIONS.increment();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的预编译语句，未命中时创建并缓存
+     * 返回的语句由缓存管理，调用方不得关闭
+     * @param sql SQL语句
+     * @return 预编译语句
+     * @throws SQLException SQL异常
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * 获取缓存的预编译语句（可指定是否返回自增主键）
+     * @param sql SQL语句
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS 或 Statement.NO_GENERATED_KEYS
+     * @return 预编译语句
+     * @throws SQLException SQL异常
+     */
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? GENERATED_KEYS_PREFIX + sql : sql;
+        return prepare(key, sql, autoGeneratedKeys);
+    }
+
+    private PreparedStatement prepare(String key, String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            PreparedStatement stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+            uncached.add(stmt);
+            return stmt;
+        }
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            TOTAL_HITS.increment();
+            stmt.clearParameters();
+            return stmt;
+        }
+        misses++;
+        TOTAL_MISSES.increment();
+        stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, stmt);
+        return stmt;
+    }
+
+    /**
+     * 关闭借出期间新建的未缓存语句（连接归还连接池时调用）
+     */
+    public void release() {
+        for (PreparedStatement stmt : uncached) {
+            closeQuietly(stmt);
+        }
+        uncached.clear();
+    }
+
+    /**
+     * 关闭并清空所有缓存的语句（物理连接关闭前调用）
+     */
+    public void close() {
+        release();
+        List<PreparedStatement> cached = new ArrayList<>(statements.values());
+        statements.clear();
+        for (PreparedStatement stmt : cached) {
+            closeQuietly(stmt);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            LogUtil.error("关闭预编译语句失败", e);
+        }
+    }
+
+    // 统计信息
+    public int size() { return statements.size(); }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+
+    public static long getTotalHits() { return TOTAL_HITS.sum(); }
+    public static long getTotalMisses() { return TOTAL_MISSES.sum(); }
+    public static long getTotalEvictions() { return TOTAL_EVICTIONS.sum(); }
+
+    /**
+     * 全局命中率摘要
+     * @return 统计字符串
+     */
+    public static String getStats() {
+        long hits = getTotalHits();
+        long total = hits + getTotalMisses();
+        return String.format("语句缓存[命中=%d, 未命中=%d, 淘汰=%d, 命中率=%.1f%%]",
+                hits, getTotalMisses(), getTotalEvictions(), total == 0 ? 0 : hits * 100.0 / total);
+    }
+}
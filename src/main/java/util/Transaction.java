@@ -1,50 +1,73 @@
 package util;
 
+/**
+ * 计费规则
+ * Transaction
+ * 所有金额单位为分（见 Money），计算过程只有整数运算，结果精确到分。
+ * 折扣与押金由 PricingEngine 按 pricing_rule 表计算。
+ */
 public class Transaction {
+
+    /**
+     * 计算租金原价
+     * @param hours 租赁时长（小时）
+     * @param pricePerHour 每小时租金（分）
+     * @return 租金原价（分）
+     */
+    public static long calculateRentalCost(long hours, long pricePerHour) {
+        return Money.multiply(pricePerHour, hours);
+    }
+
     /**
-     * 计算实际费用（应用会员折扣）
-     * @param totalCost 原始费用
+     * 计算实际费用（应用会员折扣，四舍五入到分）
+     * @param totalCost 原始费用（分）
      * @param userStatus 用户状态 (VIP/SVIP)
-     * @return 折扣后的实际费用
+     * @return 折扣后的实际费用（分）
+     */
+    public static long calculateActualCost(long totalCost, String userStatus) {
+        return PricingEngine.getInstance().current().quote(totalCost, userStatus, null, -1, 0);
+    }
+
+    /**
+     * 计算实际费用（应用会员、品牌、时段、时长阶梯规则，四舍五入到分）
+     * @param totalCost 原始费用（分）
+     * @param userStatus 用户状态
+     * @param brand 充电宝品牌
+     * @param startHour 租借开始的小时（0-23）
+     * @param hours 租赁时长（小时）
+     * @return 实际费用（分）
      */
-    public static double calculateActualCost(double totalCost, String userStatus) {
-        double actualCost = totalCost;
-        if ("SVIP".equals(userStatus)) {
-            actualCost *= 0.5; // SVIP 5折
-        } else if ("VIP".equals(userStatus)) {
-            actualCost *= 0.8; // VIP 8折
-        }
-        return actualCost;
+    public static long calculateActualCost(long totalCost, String userStatus, String brand, int startHour, long hours) {
+        return PricingEngine.getInstance().current().quote(totalCost, userStatus, brand, startHour, hours);
     }
 
     /**
      * 计算押金金额
      * @param userStatus 用户状态
-     * @return 押金金额
+     * @return 押金金额（分）
      */
-    public static double calculateDeposit(String userStatus) {
-        boolean isVipOrSvip = "VIP".equals(userStatus) || "SVIP".equals(userStatus);
-        return isVipOrSvip ? 0 : 99.0; // VIP和SVIP不需要押金，普通用户需要99元押金
+    public static long calculateDeposit(String userStatus) {
+        return PricingEngine.getInstance().current().deposit(userStatus);
     }
 
     /**
      * 计算归还时的余额变动
-     * @param currentBalance 当前余额
-     * @param deposit 押金
-     * @param actualCost 实际费用
-     * @return 归还后的新余额
+     * @param currentBalance 当前余额（分）
+     * @param deposit 押金（分）
+     * @param actualCost 实际费用（分）
+     * @return 归还后的新余额（分）
      */
-    public static double calculateReturnBalance(double currentBalance, double deposit, double actualCost) {
+    public static long calculateReturnBalance(long currentBalance, long deposit, long actualCost) {
         return currentBalance + deposit - actualCost;
     }
 
     /**
      * 检查余额是否足够支付押金
-     * @param balance 当前余额
-     * @param requiredAmount 所需金额
+     * @param balance 当前余额（分）
+     * @param requiredAmount 所需金额（分）
      * @return 是否余额充足
      */
-    public static boolean isBalanceSufficient(double balance, double requiredAmount) {
+    public static boolean isBalanceSufficient(long balance, long requiredAmount) {
         return balance >= requiredAmount;
     }
 